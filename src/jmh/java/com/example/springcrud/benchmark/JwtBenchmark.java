@@ -0,0 +1,77 @@
+package com.example.springcrud.benchmark;
+
+import com.example.springcrud.entity.Role;
+import com.example.springcrud.entity.User;
+import com.example.springcrud.util.JwtKeyRing;
+import com.example.springcrud.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing and verification as done on every login and every authenticated request.
+ * "cold" parses and checks the signature each time; "warm" is answered from the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil warmJwtUtil;
+    private JwtUtil coldJwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        warmJwtUtil = newJwtUtil(10_000);
+        // A zero-sized cache evicts straight away, so every call pays for the full parse
+        coldJwtUtil = newJwtUtil(0);
+
+        user = new User("Bench Mark", "benchmark", "benchmark@example.com", "hash");
+        user.setId(42L);
+        user.getRoles().add(Role.ADMIN);
+        token = warmJwtUtil.generateToken(user, 0);
+        warmJwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return warmJwtUtil.generateToken(user, 0);
+    }
+
+    @Benchmark
+    public String generateSubjectOnlyToken() {
+        return warmJwtUtil.generateToken(user.getUsername());
+    }
+
+    @Benchmark
+    public boolean validateTokenWarm() {
+        return warmJwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public boolean validateTokenCold() {
+        return coldJwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromTokenWarm() {
+        return warmJwtUtil.getUsernameFromToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromTokenCold() {
+        return coldJwtUtil.getUsernameFromToken(token);
+    }
+
+    private static JwtUtil newJwtUtil(long cacheSize) {
+        return new JwtUtil(JwtKeyRing.inMemory(JwtKeyRing.EDDSA), new SimpleMeterRegistry(), "", "",
+                TimeUnit.HOURS.toMillis(1), Duration.ofMinutes(15), cacheSize);
+    }
+}
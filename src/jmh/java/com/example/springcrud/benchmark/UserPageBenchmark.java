@@ -0,0 +1,63 @@
+package com.example.springcrud.benchmark;
+
+import com.example.springcrud.entity.Role;
+import com.example.springcrud.model.projection.UserRoleRow;
+import com.example.springcrud.model.projection.UserSummary;
+import com.example.springcrud.model.response.UserPageResponse;
+import com.example.springcrud.repository.UserRepository;
+import com.example.springcrud.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory part of {@code GET /api/users}: grouping role rows and mapping summaries to responses.
+ * The repository is a canned stub, so only the service's own work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPageBenchmark {
+
+    @Param({"20", "100", "500"})
+    public int pageSize;
+
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        List<UserSummary> summaries = new ArrayList<>();
+        List<UserRoleRow> roles = new ArrayList<>();
+        // One row more than the page, like the real keyset query
+        for (long id = 1; id <= pageSize + 1; id++) {
+            summaries.add(new UserSummary(id, "Full Name " + id, "user" + id, "user" + id + "@example.com"));
+            roles.add(new UserRoleRow(id, Role.USER));
+            if (id % 10 == 0) {
+                roles.add(new UserRoleRow(id, Role.ADMIN));
+            }
+        }
+
+        UserRepository repository = (UserRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findSummariesByIdGreaterThanOrderByIdAsc" -> summaries;
+                    case "findRolesByUserIds" -> roles;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        // Only the repository is used by getUsersPage
+        userService = new UserService(repository, null, null, null, null, null, null, null, null, null, Runnable::run,
+                new ObjectMapper(), pageSize, pageSize, 1);
+    }
+
+    @Benchmark
+    public UserPageResponse getUsersPage() {
+        return userService.getUsersPage(null, pageSize);
+    }
+}
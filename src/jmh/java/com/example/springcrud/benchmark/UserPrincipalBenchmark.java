@@ -0,0 +1,49 @@
+package com.example.springcrud.benchmark;
+
+import com.example.springcrud.config.UserPrincipal;
+import com.example.springcrud.entity.Role;
+import com.example.springcrud.entity.User;
+import com.example.springcrud.util.JwtKeyRing;
+import com.example.springcrud.util.JwtUtil;
+import com.example.springcrud.util.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a loaded user, or the claims of a verified token, into the security principal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPrincipalBenchmark {
+
+    private User user;
+    private VerifiedToken verifiedToken;
+
+    @Setup
+    public void setUp() {
+        user = new User("Bench Mark", "benchmark", "benchmark@example.com", "hash");
+        user.setId(42L);
+        user.getRoles().add(Role.ADMIN);
+
+        JwtUtil jwtUtil = new JwtUtil(JwtKeyRing.inMemory(JwtKeyRing.EDDSA), new SimpleMeterRegistry(), "", "",
+                TimeUnit.HOURS.toMillis(1), Duration.ofMinutes(15), 10);
+        verifiedToken = jwtUtil.verify(jwtUtil.generateToken(user, 0)).orElseThrow();
+    }
+
+    @Benchmark
+    public UserPrincipal buildFromEntity() {
+        return UserPrincipal.build(user);
+    }
+
+    @Benchmark
+    public UserPrincipal buildFromToken() {
+        return UserPrincipal.fromToken(verifiedToken);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.springcrud.cache;
+
+import com.example.springcrud.entity.Role;
+import com.example.springcrud.model.projection.UserProfileRow;
+import com.example.springcrud.model.response.UserResponse;
+
+import java.io.Serializable;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of a user's public data as held in the user caches.
+ * The password hash is deliberately not part of it, and roles are packed into a bitmask.
+ */
+public record CachedUser(Long id, String fullname, String username, String email, int roleMask)
+        implements Serializable {
+
+    public Set<Role> roles() {
+        return Role.fromMask(roleMask);
+    }
+
+    public UserResponse toResponse() {
+        Set<String> roleNames = new LinkedHashSet<>();
+        for (Role role : roles()) {
+            roleNames.add(role.name());
+        }
+
+        UserResponse response = new UserResponse();
+        response.setId(id);
+        response.setFullName(fullname);
+        response.setUsername(username);
+        response.setEmail(email);
+        response.setRoles(roleNames);
+        return response;
+    }
+
+    /**
+     * Folds the one-row-per-role result of a profile query into a single value.
+     */
+    public static Optional<CachedUser> fromRows(List<UserProfileRow> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int mask = 0;
+        for (UserProfileRow row : rows) {
+            if (row.role() != null) {
+                mask |= row.role().bit();
+            }
+        }
+
+        UserProfileRow first = rows.get(0);
+        return Optional.of(new CachedUser(first.id(), first.fullname(), first.username(), first.email(), mask));
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.springcrud.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link UserInvalidationEvent}s between application instances.
+ * Implementations may hand an instance its own events back; {@link UserInvalidationBus} filters them out.
+ */
+public interface InvalidationTransport {
+
+    void publish(UserInvalidationEvent event);
+
+    void subscribe(Consumer<UserInvalidationEvent> listener);
+}
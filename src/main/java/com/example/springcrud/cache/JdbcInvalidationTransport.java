@@ -0,0 +1,165 @@
+package com.example.springcrud.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Transport that needs no infrastructure beyond the application database: events are appended to a
+ * small table and every instance polls it for rows it has not seen yet.
+ * Latency is bounded by the poll interval; rows older than the retention period are purged.
+ * A starting instance replays every retained row, so token versions bumped while it was down still reach it.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+@ConditionalOnProperty(name = "app.cache.invalidation.transport", havingValue = "jdbc")
+public class JdbcInvalidationTransport implements InvalidationTransport {
+
+    private static final String CREATE_TABLE_SQL = """
+            create table if not exists user_cache_invalidations (
+                id bigint auto_increment primary key,
+                user_id bigint not null,
+                username varchar(255),
+                emails varchar(1024),
+                token_version int not null,
+                origin varchar(64) not null,
+                created_at timestamp not null
+            )""";
+
+    private static final String INSERT_SQL = """
+            insert into user_cache_invalidations (user_id, username, emails, token_version, origin, created_at)
+            values (?, ?, ?, ?, ?, ?)""";
+
+    private static final String POLL_SQL = """
+            select id, user_id, username, emails, token_version, origin
+            from user_cache_invalidations
+            where id > ?
+            order by id""";
+
+    // Auto-increment ids can become visible out of order, so every poll looks this many ids back
+    private static final long LOOKBACK_IDS = 100;
+
+    private static final long PURGE_EVERY_POLLS = 600;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration pollInterval;
+    private final Duration retention;
+    private final List<Consumer<UserInvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    // Only touched by the single poller thread
+    private final NavigableSet<Long> recentIds = new TreeSet<>();
+    private long lastSeenId;
+    private long polls;
+
+    private ScheduledExecutorService poller;
+
+    public JdbcInvalidationTransport(DataSource dataSource,
+                                     @Value("${app.cache.invalidation.poll-interval:100ms}") Duration pollInterval,
+                                     @Value("${app.cache.invalidation.retention:1h}") Duration retention) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+    }
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        Long firstRetained = jdbcTemplate.queryForObject(
+                "select min(id) from user_cache_invalidations where created_at >= ?", Long.class,
+                Timestamp.from(Instant.now().minus(retention)));
+        if (firstRetained != null) {
+            lastSeenId = firstRetained - 1; // The first poll replays everything from there on
+        } else {
+            Long maxId = jdbcTemplate.queryForObject("select max(id) from user_cache_invalidations", Long.class);
+            lastSeenId = maxId == null ? 0 : maxId;
+        }
+        // Polls look back behind lastSeenId; what lies there counts as seen, or expired rows would come back too
+        recentIds.addAll(jdbcTemplate.queryForList("select id from user_cache_invalidations where id > ? and id <= ?",
+                Long.class, lastSeenId - LOOKBACK_IDS, lastSeenId));
+    }
+
+    /**
+     * Polling waits until every listener has subscribed, otherwise the replayed rows would be lost on them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        poller = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("cache-invalidation-poller-"));
+        poller.scheduleWithFixedDelay(this::pollSafely, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Polling user_cache_invalidations every {} ms", pollInterval.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    @Override
+    public void publish(UserInvalidationEvent event) {
+        jdbcTemplate.update(INSERT_SQL, event.userId(), event.username(), String.join("\n", event.emails()),
+                event.tokenVersion(), event.origin(), Timestamp.from(Instant.now()));
+    }
+
+    @Override
+    public void subscribe(Consumer<UserInvalidationEvent> listener) {
+        listeners.add(listener);
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+            if (++polls % PURGE_EVERY_POLLS == 0) {
+                jdbcTemplate.update("delete from user_cache_invalidations where created_at < ?",
+                        Timestamp.from(Instant.now().minus(retention)));
+            }
+        } catch (RuntimeException e) {
+            // Keep the poller alive; the next round picks up where this one stopped
+            log.warn("Polling cache invalidations failed: {}", e.getMessage());
+        }
+    }
+
+    private void poll() {
+        jdbcTemplate.query(POLL_SQL, rs -> {
+            long id = rs.getLong("id");
+            lastSeenId = Math.max(lastSeenId, id);
+            if (!recentIds.add(id)) {
+                return;
+            }
+
+            String emails = rs.getString("emails");
+            UserInvalidationEvent event = new UserInvalidationEvent(
+                    rs.getLong("user_id"),
+                    rs.getString("username"),
+                    emails == null || emails.isEmpty() ? List.of() : Arrays.asList(emails.split("\n")),
+                    rs.getInt("token_version"),
+                    rs.getString("origin"));
+            listeners.forEach(listener -> listener.accept(event));
+        }, Math.max(0, lastSeenId - LOOKBACK_IDS));
+
+        recentIds.headSet(lastSeenId - LOOKBACK_IDS, false).clear();
+    }
+}
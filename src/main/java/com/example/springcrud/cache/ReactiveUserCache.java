@@ -0,0 +1,61 @@
+package com.example.springcrud.cache;
+
+import com.example.springcrud.model.projection.UserProfileRow;
+import com.example.springcrud.repository.ReactiveUserRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Non-blocking user cache for the reactive profile, keyed by id and by username.
+ * Values are futures, so concurrent misses for the same key share one database query.
+ * An invalidation that arrives while a load is in flight removes the pending future,
+ * so the stale result never becomes visible to later readers.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveUserCache {
+
+    private final ReactiveUserRepository userRepository;
+    private final AsyncCache<Long, CachedUser> byId;
+    private final AsyncCache<String, CachedUser> byUsername;
+
+    public ReactiveUserCache(ReactiveUserRepository userRepository, UserInvalidationBus invalidationBus,
+                             @Value("${app.cache.reactive.max-size:10000}") long maxSize,
+                             @Value("${app.cache.reactive.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.byId = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).buildAsync();
+        this.byUsername = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).buildAsync();
+        invalidationBus.addListener(this::invalidate);
+    }
+
+    public Mono<CachedUser> findById(Long id) {
+        return lookup(byId, id, key -> userRepository.findProfileRowsById(key).collectList());
+    }
+
+    public Mono<CachedUser> findByUsername(String username) {
+        return lookup(byUsername, username, key -> userRepository.findProfileRowsByUsername(key).collectList());
+    }
+
+    private void invalidate(UserInvalidationEvent event) {
+        byId.synchronous().invalidate(event.userId());
+        if (event.username() != null) {
+            byUsername.synchronous().invalidate(event.username());
+        }
+    }
+
+    private static <K> Mono<CachedUser> lookup(AsyncCache<K, CachedUser> cache, K key,
+                                               Function<K, Mono<List<UserProfileRow>>> query) {
+        // A loader that completes with null leaves nothing in the cache, so unknown users are not cached.
+        // Cancellation is not passed on: the future is shared with every other caller of the same key.
+        return Mono.fromFuture(() -> cache.get(key, (k, executor) ->
+                query.apply(k).flatMap(rows -> Mono.justOrEmpty(CachedUser.fromRows(rows))).toFuture()), true);
+    }
+}
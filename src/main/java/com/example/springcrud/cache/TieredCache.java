@@ -0,0 +1,150 @@
+package com.example.springcrud.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.ehcache.event.CacheEvent;
+import org.ehcache.event.CacheEventListener;
+import org.ehcache.event.EventFiring;
+import org.ehcache.event.EventOrdering;
+import org.ehcache.event.EventType;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.io.Serializable;
+import java.util.EnumSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} with two levels:
+ * a small on-heap Caffeine near-cache in front of a large Ehcache store kept off-heap (and optionally on disk).
+ * Reads try the near-cache first and promote far-cache hits into it, re-checking the far level afterwards so a
+ * promotion never outlives a concurrent eviction; writes and evictions go to both,
+ * so the two levels never disagree for longer than a single call.
+ * Keys and values must be {@link Serializable}, since the far level stores them outside the Java heap.
+ */
+public class TieredCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> nearCache;
+    private final org.ehcache.Cache<Serializable, Serializable> farCache;
+
+    private final LongAdder farHits = new LongAdder();
+    private final LongAdder farMisses = new LongAdder();
+    private final LongAdder farEvictions = new LongAdder();
+
+    public TieredCache(String name,
+                       com.github.benmanes.caffeine.cache.Cache<Object, Object> nearCache,
+                       org.ehcache.Cache<Serializable, Serializable> farCache) {
+        super(false);
+        this.name = name;
+        this.nearCache = nearCache;
+        this.farCache = farCache;
+
+        farCache.getRuntimeConfiguration().registerCacheEventListener(new EvictionCounter(farEvictions),
+                EventOrdering.UNORDERED, EventFiring.ASYNCHRONOUS, EnumSet.of(EventType.EVICTED));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return nearCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = nearCache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        Serializable farValue = farCache.get(asSerializable(key));
+        if (farValue == null) {
+            farMisses.increment();
+            return null;
+        }
+        farHits.increment();
+        nearCache.put(key, farValue);
+        // An evict or put may have run between the far read and the promotion; if the far level no longer holds
+        // what was promoted, take it back out (conditionally, so a newer near entry survives)
+        if (!farValue.equals(farCache.get(asSerializable(key)))) {
+            nearCache.asMap().remove(key, farValue);
+        }
+        return farValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) fromStoreValue(value);
+        }
+        try {
+            T loaded = valueLoader.call();
+            put(key, loaded);
+            return loaded;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        farCache.put(asSerializable(key), asSerializable(storeValue));
+        nearCache.put(key, storeValue);
+    }
+
+    @Override
+    public void evict(Object key) {
+        // Far level first: a promotion racing with this sees the far entry gone and withdraws itself, see lookup
+        farCache.remove(asSerializable(key));
+        nearCache.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        farCache.clear();
+        nearCache.invalidateAll();
+    }
+
+    /**
+     * Publishes hit/miss/eviction counters for each level, tagged with {@code tier=l1} or {@code tier=l2}.
+     */
+    public void bindMetrics(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, nearCache, name, Tags.of("tier", "l1"));
+
+        Tags farTags = Tags.of("cache", name, "tier", "l2");
+        FunctionCounter.builder("cache.gets", farHits, LongAdder::sum)
+                .tags(farTags).tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", farMisses, LongAdder::sum)
+                .tags(farTags).tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", farEvictions, LongAdder::sum)
+                .tags(farTags)
+                .register(registry);
+    }
+
+    private static Serializable asSerializable(Object value) {
+        if (value instanceof Serializable serializable) {
+            return serializable;
+        }
+        throw new IllegalArgumentException("Tiered cache entries must be Serializable, got " + value.getClass().getName());
+    }
+
+    // Counts capacity evictions of the far level for bindMetrics
+    private record EvictionCounter(LongAdder evictions) implements CacheEventListener<Serializable, Serializable> {
+
+        @Override
+        public void onEvent(CacheEvent<? extends Serializable, ? extends Serializable> event) {
+            evictions.increment();
+        }
+    }
+}
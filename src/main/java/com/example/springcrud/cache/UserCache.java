@@ -0,0 +1,164 @@
+package com.example.springcrud.cache;
+
+import com.example.springcrud.model.projection.UserProfileRow;
+import com.example.springcrud.repository.UserRepository;
+import com.example.springcrud.tracing.Traced;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.context.annotation.Profile;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single cache of users, reachable by id, username or email.
+ * The value lives once under its id; the username and email caches only map to that id,
+ * so one eviction by id is enough to make every lookup path miss.
+ * <p>
+ * Writers publish a {@link UserInvalidationEvent} on the {@link UserInvalidationBus}; once the
+ * surrounding transaction has committed every node evicts all keys of the user. Readers that loaded
+ * a value while an invalidation was in flight throw their result away instead of caching stale data.
+ * <p>
+ * {@code user.cache.requests} counts hits and misses per lookup path across both tiers, and
+ * {@code user.cache.load} times the database query behind a miss.
+ */
+@Component
+@Traced
+@Profile("!reactive")
+@Slf4j
+public class UserCache {
+
+    public static final String BY_ID = "users";
+    public static final String BY_USERNAME = "usersByUsername";
+    public static final String BY_EMAIL = "usersByEmail";
+
+    private final UserRepository userRepository;
+    private final Cache byId;
+    private final Cache byUsername;
+    private final Cache byEmail;
+
+    // Bumped on every invalidation; a load only counts if no invalidation happened while it ran
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LookupMetrics byIdMetrics;
+    private final LookupMetrics byUsernameMetrics;
+    private final LookupMetrics byEmailMetrics;
+
+    public UserCache(UserRepository userRepository, CacheManager cacheManager, UserInvalidationBus invalidationBus,
+                     MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.byId = requireCache(cacheManager, BY_ID);
+        this.byUsername = requireCache(cacheManager, BY_USERNAME);
+        this.byEmail = requireCache(cacheManager, BY_EMAIL);
+        this.byIdMetrics = new LookupMetrics(meterRegistry, BY_ID);
+        this.byUsernameMetrics = new LookupMetrics(meterRegistry, BY_USERNAME);
+        this.byEmailMetrics = new LookupMetrics(meterRegistry, BY_EMAIL);
+        invalidationBus.addListener(event ->
+                invalidate(event.userId(), event.username(), event.emails().toArray(String[]::new)));
+    }
+
+    public Optional<CachedUser> findById(Long id) {
+        CachedUser cached = byId.get(id, CachedUser.class);
+        if (cached != null) {
+            byIdMetrics.hits.increment();
+            return Optional.of(cached);
+        }
+        return load(byIdMetrics, () -> userRepository.findProfileRowsById(id));
+    }
+
+    public Optional<CachedUser> findByUsername(String username) {
+        CachedUser cached = lookup(byUsername.get(username, Long.class));
+        if (cached != null && cached.username().equals(username)) {
+            byUsernameMetrics.hits.increment();
+            return Optional.of(cached);
+        }
+        return load(byUsernameMetrics, () -> userRepository.findProfileRowsByUsername(username));
+    }
+
+    public Optional<CachedUser> findByEmail(String email) {
+        CachedUser cached = lookup(byEmail.get(email, Long.class));
+        if (cached != null && cached.email().equals(email)) {
+            byEmailMetrics.hits.increment();
+            return Optional.of(cached);
+        }
+        return load(byEmailMetrics, () -> userRepository.findProfileRowsByEmail(email));
+    }
+
+    void invalidate(Long id, String username, String... emails) {
+        generation.incrementAndGet();
+
+        if (id != null) {
+            // Also drop index entries of whatever version was cached, in case it differs from the caller's view
+            CachedUser cached = byId.get(id, CachedUser.class);
+            if (cached != null) {
+                byUsername.evict(cached.username());
+                byEmail.evict(cached.email());
+            }
+            byId.evict(id);
+        }
+        if (username != null) {
+            byUsername.evict(username);
+        }
+        for (String email : emails) {
+            if (email != null) {
+                byEmail.evict(email);
+            }
+        }
+    }
+
+    private CachedUser lookup(Long id) {
+        return id == null ? null : byId.get(id, CachedUser.class);
+    }
+
+    private Optional<CachedUser> load(LookupMetrics metrics, Supplier<List<UserProfileRow>> query) {
+        metrics.misses.increment();
+        long stamp = generation.get();
+        Optional<CachedUser> loaded = CachedUser.fromRows(metrics.loadTimer.record(query));
+        loaded.ifPresent(user -> {
+            byId.put(user.id(), user);
+            byUsername.put(user.username(), user.id());
+            byEmail.put(user.email(), user.id());
+
+            // Re-check after writing: if an invalidation raced with this load, undo what we just cached
+            if (generation.get() != stamp) {
+                invalidate(user.id(), user.username(), user.email());
+            }
+        });
+        return loaded;
+    }
+
+    private static Cache requireCache(CacheManager cacheManager, String name) {
+        return Objects.requireNonNull(cacheManager.getCache(name), () -> "Cache '" + name + "' is not configured");
+    }
+
+    private static final class LookupMetrics {
+
+        private final Counter hits;
+        private final Counter misses;
+        private final Timer loadTimer;
+
+        private LookupMetrics(MeterRegistry registry, String cache) {
+            this.hits = requests(registry, cache, "hit");
+            this.misses = requests(registry, cache, "miss");
+            this.loadTimer = Timer.builder("user.cache.load")
+                    .description("Database lookups made to fill a user cache miss")
+                    .tag("cache", cache)
+                    .register(registry);
+        }
+
+        private static Counter requests(MeterRegistry registry, String cache, String result) {
+            return Counter.builder("user.cache.requests")
+                    .tag("cache", cache)
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
+}
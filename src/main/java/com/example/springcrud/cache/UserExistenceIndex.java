@@ -0,0 +1,247 @@
+package com.example.springcrud.cache;
+
+import com.example.springcrud.repository.UserStreamRepository;
+import com.example.springcrud.util.CountingBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory membership index over every username and email in the users table, so uniqueness checks for
+ * names that do not exist (registrations, imports) can skip the database.
+ * <p>
+ * Only use it where the unique indexes back up a wrong "absent": a user registered on another node reaches
+ * this index through its invalidation event, which may arrive late (the jdbc transport polls) or never
+ * (the loopback transport does not leave the JVM). Logins therefore always ask the database.
+ * <p>
+ * Backed by counting Bloom filters: "absent" is definite, "present" only means a query is needed.
+ * The index must never call an existing user absent, which shapes every update:
+ * <ul>
+ *     <li>Keys are added before the row is inserted, and removed only after the delete has committed.</li>
+ *     <li>Users created or changed on other nodes are added when their invalidation event arrives. Their
+ *     removals are not replayed, which only leaves false positives behind.</li>
+ *     <li>Until the first warm-up has streamed the table, every key is reported as possibly present.
+ *     A (re)build publishes its new filter first, waits {@code settle-time} for writes that only reached the
+ *     old one to commit, and then streams the table. Meanwhile adds go to both filters and removals skip
+ *     the new one.</li>
+ * </ul>
+ * Keys are lower-cased, matching MySQL's case-insensitive collation. Once more keys have been added
+ * than the filters were sized for, they are rebuilt at twice the current size.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class UserExistenceIndex {
+
+    private record Filters(CountingBloomFilter usernames, CountingBloomFilter emails) {
+    }
+
+    private final UserStreamRepository streamRepository;
+    private final UserInvalidationBus invalidationBus;
+    private final Executor executor;
+    private final boolean enabled;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final Duration settleTime;
+
+    private volatile Filters current;
+    private volatile Filters building;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong keysAdded = new AtomicLong();
+
+    private final Counter absentLookups;
+    private final Counter maybeLookups;
+
+    public UserExistenceIndex(UserStreamRepository streamRepository, UserInvalidationBus invalidationBus,
+                              @Qualifier("applicationTaskExecutor") Executor executor, MeterRegistry meterRegistry,
+                              @Value("${app.users.existence-index.enabled:true}") boolean enabled,
+                              @Value("${app.users.existence-index.expected-users:1000000}") long expectedUsers,
+                              @Value("${app.users.existence-index.false-positive-rate:0.01}") double falsePositiveRate,
+                              @Value("${app.users.existence-index.settle-time:10s}") Duration settleTime) {
+        this.streamRepository = streamRepository;
+        this.invalidationBus = invalidationBus;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.settleTime = settleTime;
+        this.absentLookups = lookupCounter(meterRegistry, "absent");
+        this.maybeLookups = lookupCounter(meterRegistry, "maybe");
+
+        invalidationBus.addListener(event -> {
+            if (!invalidationBus.isLocal(event)) {
+                add(event.username(), event.emails());
+            }
+        });
+    }
+
+    private static Counter lookupCounter(MeterRegistry registry, String result) {
+        return Counter.builder("user.existence.lookups")
+                .description("Username/email existence checks answered by the in-memory index")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            rebuildAsync(expectedUsers);
+        }
+    }
+
+    /**
+     * @return false only if no user has this username.
+     */
+    public boolean mightContainUsername(String username) {
+        Filters filters = current;
+        return record(filters == null || filters.usernames().mightContain(key(username)));
+    }
+
+    /**
+     * @return false only if no user has this email.
+     */
+    public boolean mightContainEmail(String email) {
+        Filters filters = current;
+        return record(filters == null || filters.emails().mightContain(key(email)));
+    }
+
+    /**
+     * Must be called before the user is inserted (or renamed), never after.
+     */
+    public void add(String username, Collection<String> emails) {
+        // Read 'building' first: once a rebuild has published it, this add reaches the new filter either
+        // through 'building' or, after the swap, through 'current'
+        Filters next = building;
+        Filters target = current;
+        for (Filters filters : distinct(target, next)) {
+            if (username != null) {
+                filters.usernames().add(key(username));
+            }
+            for (String email : emails) {
+                if (email != null) {
+                    filters.emails().add(key(email));
+                }
+            }
+        }
+
+        if (target != null && keysAdded.incrementAndGet() > target.usernames().capacity()) {
+            rebuildAsync(target.usernames().capacity() * 2);
+        }
+    }
+
+    public void add(String username, String email) {
+        add(username, List.of(email));
+    }
+
+    /**
+     * Drops the keys once the surrounding transaction has committed; a rollback leaves them in place.
+     * Call it while the row still exists: the removal is bound to the filter that is live at that point,
+     * so a rebuild that completes in between (and never saw the row) cannot be decremented.
+     */
+    public void removeAfterCommit(String username, String... emails) {
+        Filters filters = current;
+        if (filters == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(filters, username, emails);
+                }
+            });
+        } else {
+            remove(filters, username, emails);
+        }
+    }
+
+    private static void remove(Filters filters, String username, String... emails) {
+        if (username != null) {
+            filters.usernames().remove(key(username));
+        }
+        for (String email : emails) {
+            if (email != null) {
+                filters.emails().remove(key(email));
+            }
+        }
+    }
+
+    private void rebuildAsync(long minimumCapacity) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> rebuild(minimumCapacity));
+        } catch (RuntimeException e) {
+            rebuilding.set(false);
+            log.warn("Could not schedule a rebuild of the user existence index: {}", e.getMessage());
+        }
+    }
+
+    private void rebuild(long minimumCapacity) {
+        long start = System.nanoTime();
+        try {
+            long users = streamRepository.countUsers();
+            long capacity = Math.max(minimumCapacity, users * 2);
+            Filters next = new Filters(new CountingBloomFilter(capacity, falsePositiveRate),
+                    new CountingBloomFilter(capacity, falsePositiveRate));
+            building = next;
+
+            // Adds made before 'building' was visible went only to the old filter; wait until their
+            // transactions have committed so the stream below is sure to see those rows
+            Thread.sleep(settleTime.toMillis());
+
+            streamRepository.streamUsernamesAndEmails((username, email) -> {
+                next.usernames().add(key(username));
+                next.emails().add(key(email));
+            });
+
+            keysAdded.set(users);
+            current = next;
+            building = null;
+            log.info("User existence index built over {} users in {} ms ({} KB, sized for {})", users,
+                    (System.nanoTime() - start) / 1_000_000,
+                    (next.usernames().sizeInBytes() + next.emails().sizeInBytes()) / 1024, capacity);
+        } catch (InterruptedException e) {
+            building = null;
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            building = null;
+            log.warn("Building the user existence index failed, lookups keep going to the database: {}", e.getMessage());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private boolean record(boolean mightContain) {
+        (mightContain ? maybeLookups : absentLookups).increment();
+        return mightContain;
+    }
+
+    private static List<Filters> distinct(Filters first, Filters second) {
+        if (first == null || first == second) {
+            return second == null ? List.of() : List.of(second);
+        }
+        return second == null ? List.of(first) : List.of(first, second);
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.springcrud.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Fans user invalidations out to this node's caches and, through the configured
+ * {@link InvalidationTransport}, to every other instance.
+ * Events are only published once the writing transaction has committed, so no peer can
+ * reload the old row in between. Events a node published itself are ignored when they come back.
+ */
+@Component
+@Slf4j
+public class UserInvalidationBus {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final InvalidationTransport transport;
+    private final List<Consumer<UserInvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    public UserInvalidationBus(InvalidationTransport transport) {
+        this.transport = transport;
+        transport.subscribe(this::receive);
+        log.info("User invalidation bus started on node {} using {}", nodeId, transport.getClass().getSimpleName());
+    }
+
+    public void addListener(Consumer<UserInvalidationEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return true if this node published the event, false if it came from a peer.
+     */
+    public boolean isLocal(UserInvalidationEvent event) {
+        return nodeId.equals(event.origin());
+    }
+
+    /**
+     * Applies the event locally and broadcasts it once the current transaction commits, or right away if there is none.
+     */
+    public void publishAfterCommit(UserInvalidationEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+
+    private void publish(UserInvalidationEvent event) {
+        UserInvalidationEvent stamped = event.withOrigin(nodeId);
+        deliver(stamped);
+        try {
+            transport.publish(stamped);
+        } catch (RuntimeException e) {
+            // The local caches are already clean; peers fall back to their TTL for this one
+            log.warn("Could not broadcast invalidation of user {}: {}", event.userId(), e.getMessage());
+        }
+    }
+
+    private void receive(UserInvalidationEvent event) {
+        if (!nodeId.equals(event.origin())) {
+            deliver(event);
+        }
+    }
+
+    private void deliver(UserInvalidationEvent event) {
+        for (Consumer<UserInvalidationEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.warn("Invalidation listener failed for user {}", event.userId(), e);
+            }
+        }
+    }
+}
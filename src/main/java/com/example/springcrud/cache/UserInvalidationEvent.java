@@ -0,0 +1,24 @@
+package com.example.springcrud.cache;
+
+import java.util.List;
+
+/**
+ * Compact notice that a user changed and every node must drop what it caches about them.
+ *
+ * @param userId       Id of the user that changed.
+ * @param username     The user's username.
+ * @param emails       Every email the cached copies may be indexed under (old and new on change).
+ * @param tokenVersion The user's token version after the change; peers raise theirs to match.
+ * @param origin       Id of the node that published the event.
+ */
+public record UserInvalidationEvent(long userId, String username, List<String> emails, int tokenVersion,
+                                    String origin) {
+
+    public static UserInvalidationEvent of(long userId, String username, int tokenVersion, String... emails) {
+        return new UserInvalidationEvent(userId, username, List.of(emails), tokenVersion, null);
+    }
+
+    UserInvalidationEvent withOrigin(String nodeId) {
+        return new UserInvalidationEvent(userId, username, emails, tokenVersion, nodeId);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.springcrud.config;
+
+import com.example.springcrud.cache.TieredCache;
+import com.example.springcrud.cache.UserCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.context.annotation.Profile;
+
+import java.io.File;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Two-level cache setup for the user caches: Caffeine on-heap in front of Ehcache off-heap,
+ * with an optional persistent disk tier. Replaces Spring Boot's plain Caffeine cache manager
+ * unless {@code app.cache.tiered.enabled=false}.
+ */
+@Configuration
+@Profile("!reactive")
+@Slf4j
+@ConditionalOnProperty(name = "app.cache.tiered.enabled", havingValue = "true", matchIfMissing = true)
+public class CacheConfig {
+
+    private static final List<String> USER_CACHES = List.of(UserCache.BY_ID, UserCache.BY_USERNAME, UserCache.BY_EMAIL);
+
+    @Value("${app.cache.tiered.near-max-size:10000}")
+    private long nearMaxSize;
+
+    @Value("${app.cache.tiered.offheap-mb:64}")
+    private long offHeapMb;
+
+    @Value("${app.cache.tiered.disk-dir:}")
+    private String diskDir;
+
+    @Value("${app.cache.tiered.disk-mb:1024}")
+    private long diskMb;
+
+    @Value("${app.cache.tiered.ttl:10m}")
+    private Duration ttl;
+
+    @Bean(destroyMethod = "close")
+    public org.ehcache.CacheManager ehcacheManager() {
+        CacheManagerBuilder<org.ehcache.CacheManager> builder = CacheManagerBuilder.newCacheManagerBuilder()
+                // Deserialize with the application class loader (matters when devtools restarts the app)
+                .withClassLoader(getClass().getClassLoader());
+
+        if (StringUtils.hasText(diskDir)) {
+            // The directory is locked by this instance, so every node needs its own
+            return builder.with(CacheManagerBuilder.persistence(new File(diskDir))).build(true);
+        }
+        return builder.build(true);
+    }
+
+    @Bean
+    public CacheManager cacheManager(org.ehcache.CacheManager ehcacheManager, MeterRegistry meterRegistry) {
+        List<Cache> caches = new ArrayList<>();
+        for (String name : USER_CACHES) {
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nearCache = Caffeine.newBuilder()
+                    .maximumSize(nearMaxSize)
+                    .expireAfterWrite(ttl)
+                    .recordStats()
+                    .build();
+
+            org.ehcache.Cache<Serializable, Serializable> farCache = ehcacheManager.createCache(name,
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(Serializable.class, Serializable.class, farResources())
+                            .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl)));
+
+            TieredCache cache = new TieredCache(name, nearCache, farCache);
+            cache.bindMetrics(meterRegistry);
+            caches.add(cache);
+        }
+
+        log.info("Tiered user caches {}: {} entries on heap, {} MB off-heap{}", USER_CACHES, nearMaxSize, offHeapMb,
+                StringUtils.hasText(diskDir) ? ", " + diskMb + " MB on disk at " + diskDir : "");
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(caches);
+        return cacheManager;
+    }
+
+    private ResourcePoolsBuilder farResources() {
+        if (!StringUtils.hasText(diskDir)) {
+            return ResourcePoolsBuilder.newResourcePoolsBuilder()
+                    .offheap(offHeapMb, MemoryUnit.MB);
+        }
+        // Ehcache needs a heap tier on top once more than one tier is configured; keep it token-sized
+        return ResourcePoolsBuilder.newResourcePoolsBuilder()
+                .heap(100, EntryUnit.ENTRIES)
+                .offheap(offHeapMb, MemoryUnit.MB)
+                .disk(diskMb, MemoryUnit.MB, true);
+    }
+}
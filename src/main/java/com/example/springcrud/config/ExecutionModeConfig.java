@@ -0,0 +1,58 @@
+package com.example.springcrud.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Switches between platform and virtual threads with {@code spring.threads.virtual.enabled}.
+ * Spring Boot moves Tomcat and the application task executor onto virtual threads; this class adds
+ * what that mode needs on top: a cap on concurrent database access, and an {@code execution.mode}
+ * tag on every meter so runs in both modes can be compared side by side.
+ * Password hashing keeps its own bounded platform pool in both modes, so CPU-bound bcrypt work
+ * never occupies the carrier threads that virtual threads run on.
+ */
+@Configuration
+@Slf4j
+public class ExecutionModeConfig {
+
+    @Bean
+    public MeterRegistryCustomizer<MeterRegistry> executionModeTag(Environment environment) {
+        String mode = Threading.VIRTUAL.isActive(environment) ? "virtual" : "platform";
+        log.info("Serving requests on {} threads", mode);
+        return registry -> registry.config().commonTags("execution.mode", mode);
+    }
+
+    // Static so the post-processor is registered before the DataSource is created
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public static BeanPostProcessor dataSourceConcurrencyLimiter(Environment environment,
+                                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitingDataSource) {
+                    return bean;
+                }
+                int maxConcurrency = environment.getProperty("app.db.max-concurrency", Integer.class,
+                        environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+                Duration acquireTimeout = environment.getProperty("app.db.acquire-timeout", Duration.class,
+                        Duration.ofSeconds(5));
+
+                log.info("Limiting DataSource '{}' to {} concurrent connections", beanName, maxConcurrency);
+                return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeout,
+                        meterRegistry.getObject());
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.springcrud.config;
+
+import com.example.springcrud.entity.UserRow;
+import com.example.springcrud.util.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import reactor.core.publisher.Mono;
+
+/**
+ * Installs the node's id generator before Hibernate starts. Users inserted through R2DBC get their ids
+ * from the same generator.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    /**
+     * Two instances with the same node id can hand out the same ids, so there is no guessing one: an unset
+     * node id fails startup unless the deployment says it is the only instance.
+     */
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(@Value("${app.id.node-id:-1}") int nodeId,
+                                                     @Value("${app.id.single-node:false}") boolean singleNode) {
+        if (nodeId < 0) {
+            if (!singleNode) {
+                throw new IllegalStateException("app.id.node-id is not set: give every instance sharing the database "
+                        + "its own node id (0-" + SnowflakeIdGenerator.MAX_NODE_ID + "), or set app.id.single-node=true "
+                        + "to run as node 0");
+            }
+            nodeId = 0;
+        }
+        return SnowflakeIdGenerator.install(nodeId);
+    }
+
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnIdGenerator() {
+        return new EntityManagerFactoryDependsOnPostProcessor("snowflakeIdGenerator");
+    }
+
+    /**
+     * Spring Data R2DBC decides between INSERT and UPDATE before running this callback, so a row that
+     * reaches it without an id is always a new one.
+     */
+    @Bean
+    @Profile("reactive")
+    public BeforeConvertCallback<UserRow> userRowIdAssigner(SnowflakeIdGenerator idGenerator) {
+        return (row, table) -> {
+            if (row.getId() == null) {
+                row.setId(idGenerator.nextId());
+            }
+            return Mono.just(row);
+        };
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.springcrud.config;
 
 import com.example.springcrud.service.MyUserDetailsService;
+import com.example.springcrud.service.TokenRevocationIndex;
+import com.example.springcrud.service.TokenVersionRegistry;
+import com.example.springcrud.tracing.RequestTrace;
 import com.example.springcrud.util.JwtUtil;
+import com.example.springcrud.util.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -14,10 +21,13 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.context.annotation.Profile;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
+@Profile("!reactive")
 public class JwtAuthFilter extends OncePerRequestFilter {
 
 
@@ -25,10 +35,41 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final MyUserDetailsService userDetailsService;
 
+    private final TokenVersionRegistry tokenVersions;
+
+    private final TokenRevocationIndex revocations;
+
+    // When true, principals are rebuilt from token claims instead of being loaded per request
+    private final boolean statelessPrincipal;
+
+    // auth.jwt.requests by outcome; jwt.verify in JwtUtil has the parse/verify latency
+    private final Counter fromClaims;
+    private final Counter fromDatabase;
+    private final Counter rejectedInvalid;
+    private final Counter rejectedStale;
+    private final Counter rejectedRevoked;
+
     @Autowired
-    public JwtAuthFilter(JwtUtil jwtUtil, MyUserDetailsService userDetailsService) {
+    public JwtAuthFilter(JwtUtil jwtUtil, MyUserDetailsService userDetailsService, TokenVersionRegistry tokenVersions,
+                         TokenRevocationIndex revocations, MeterRegistry meterRegistry,
+                         @Value("${app.jwt.stateless-principal:false}") boolean statelessPrincipal) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.tokenVersions = tokenVersions;
+        this.revocations = revocations;
+        this.statelessPrincipal = statelessPrincipal;
+        this.fromClaims = outcomeCounter(meterRegistry, "claims");
+        this.fromDatabase = outcomeCounter(meterRegistry, "database");
+        this.rejectedInvalid = outcomeCounter(meterRegistry, "invalid");
+        this.rejectedStale = outcomeCounter(meterRegistry, "stale");
+        this.rejectedRevoked = outcomeCounter(meterRegistry, "revoked");
+    }
+
+    private static Counter outcomeCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("auth.jwt.requests")
+                .description("Requests carrying a bearer token, by how the principal was resolved or why it was not")
+                .tag("outcome", outcome)
+                .register(registry);
     }
 
     @Override
@@ -37,25 +78,57 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
             final String token = authHeader.substring(7);
-            String username = jwtUtil.getUsernameFromToken(token);
-
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
-                if (jwtUtil.validateToken(token)) {
-                    UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            // Single parse + signature check; repeat requests with the same token are served from cache
+            int span = RequestTrace.start("jwtAuthFilter");
+            try {
+                int verifySpan = RequestTrace.start("jwt.verify");
+                Optional<VerifiedToken> verified = jwtUtil.verify(token);
+                RequestTrace.end(verifySpan);
 
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+                verified.ifPresentOrElse(v -> authenticate(v, request), rejectedInvalid::increment);
+            } finally {
+                RequestTrace.end(span);
             }
         }
 
         filterChain.doFilter(request, response);
     }
 
+    private void authenticate(VerifiedToken verified, HttpServletRequest request) {
+        // Refresh tokens are only good for /refresh, never as a bearer token
+        if (verified.isRefreshToken()) {
+            rejectedInvalid.increment();
+            return;
+        }
+        // Tokens issued before a password change or account deletion carry an outdated version
+        if (verified.userId() != null && !tokenVersions.isCurrent(verified.userId(), verified.tokenVersion())) {
+            rejectedStale.increment();
+            return;
+        }
+        if (revocations.isRevoked(verified)) {
+            rejectedRevoked.increment();
+            return;
+        }
+
+        UserDetails userDetails;
+        if (statelessPrincipal && verified.hasPrincipalClaims()) {
+            userDetails = UserPrincipal.fromToken(verified);
+            fromClaims.increment();
+        } else {
+            userDetails = userDetailsService.loadPrincipalByUsername(verified.subject());
+            fromDatabase.increment();
+        }
+
+        UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
 }
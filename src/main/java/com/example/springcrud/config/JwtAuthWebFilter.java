@@ -0,0 +1,79 @@
+package com.example.springcrud.config;
+
+import com.example.springcrud.cache.ReactiveUserCache;
+import com.example.springcrud.service.TokenRevocationIndex;
+import com.example.springcrud.service.TokenVersionRegistry;
+import com.example.springcrud.util.JwtUtil;
+import com.example.springcrud.util.VerifiedToken;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Reactive counterpart of {@link JwtAuthFilter}: same token checks, but the authentication is put
+ * into the Reactor context instead of a thread-local, and a principal lookup never blocks.
+ * Not a bean on purpose; WebFlux would otherwise also register it outside the security chain.
+ */
+public class JwtAuthWebFilter implements WebFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+    private final ReactiveUserCache userCache;
+    private final TokenVersionRegistry tokenVersions;
+    private final TokenRevocationIndex revocations;
+    private final boolean statelessPrincipal;
+
+    public JwtAuthWebFilter(JwtUtil jwtUtil, ReactiveUserCache userCache, TokenVersionRegistry tokenVersions,
+                            TokenRevocationIndex revocations, boolean statelessPrincipal) {
+        this.jwtUtil = jwtUtil;
+        this.userCache = userCache;
+        this.tokenVersions = tokenVersions;
+        this.revocations = revocations;
+        this.statelessPrincipal = statelessPrincipal;
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
+            return chain.filter(exchange);
+        }
+
+        return Mono.justOrEmpty(jwtUtil.verify(authHeader.substring(BEARER_PREFIX.length())))
+                .flatMap(this::authenticate)
+                .map(authentication -> chain.filter(exchange)
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication)))
+                .switchIfEmpty(Mono.fromSupplier(() -> chain.filter(exchange)))
+                .flatMap(Function.identity());
+    }
+
+    private Mono<Authentication> authenticate(VerifiedToken verified) {
+        // Refresh tokens are only good for /refresh, never as a bearer token
+        if (verified.isRefreshToken()) {
+            return Mono.empty();
+        }
+        // Tokens issued before a password change or account deletion carry an outdated version
+        if (verified.userId() != null && !tokenVersions.isCurrent(verified.userId(), verified.tokenVersion())) {
+            return Mono.empty();
+        }
+        if (revocations.isRevoked(verified)) {
+            return Mono.empty();
+        }
+
+        Mono<UserPrincipal> principal = statelessPrincipal && verified.hasPrincipalClaims()
+                ? Mono.just(UserPrincipal.fromToken(verified))
+                : userCache.findByUsername(verified.subject()).map(UserPrincipal::fromCachedUser);
+
+        return principal.map(user -> new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
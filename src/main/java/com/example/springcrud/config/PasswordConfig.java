@@ -0,0 +1,22 @@
+package com.example.springcrud.config;
+
+import com.example.springcrud.util.PasswordEncoderFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Password encoder shared by the servlet and the reactive security setup.
+ */
+@Configuration
+public class PasswordConfig {
+
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${app.password.algorithm:bcrypt}") String algorithm,
+                                           @Value("${app.password.target-latency-ms:250}") long targetLatencyMs) {
+        return PasswordEncoderFactory.create(algorithm, Duration.ofMillis(targetLatencyMs));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.springcrud.config;
+
+import com.example.springcrud.cache.ReactiveUserCache;
+import com.example.springcrud.service.TokenRevocationIndex;
+import com.example.springcrud.service.TokenVersionRegistry;
+import com.example.springcrud.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+/**
+ * WebFlux security for the reactive profile, with the same access rules as {@link SecurityConfig}.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@Profile("reactive")
+public class ReactiveSecurityConfig {
+
+    private static final String ROLE_ADMIN = "ADMIN";
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtUtil jwtUtil,
+                                                         ReactiveUserCache userCache,
+                                                         TokenVersionRegistry tokenVersions,
+                                                         TokenRevocationIndex revocations,
+                                                         @Value("${app.jwt.stateless-principal:false}") boolean statelessPrincipal) {
+        JwtAuthWebFilter jwtAuthWebFilter = new JwtAuthWebFilter(jwtUtil, userCache, tokenVersions, revocations,
+                statelessPrincipal);
+
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                // Stateless: nothing is stored between requests, every request brings its token
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(exchange -> exchange
+                        .pathMatchers("/actuator/requestlogging/**").hasRole(ROLE_ADMIN)
+                        .pathMatchers("/actuator/**").permitAll()
+                        .pathMatchers("/api/users/register", "/api/users/login", "/api/users/refresh",
+                                "/.well-known/jwks.json").permitAll()
+                        .pathMatchers(HttpMethod.GET, "/api/users").hasRole(ROLE_ADMIN)
+                        .pathMatchers(HttpMethod.PUT, "/api/users/update").hasAnyRole(ROLE_ADMIN, "USER")
+                        .pathMatchers(HttpMethod.DELETE, "/api/users/delete-direct").hasAnyRole(ROLE_ADMIN, "USER")
+                        .pathMatchers(HttpMethod.GET, "/api/users/me").authenticated()
+                        .anyExchange().authenticated()
+                )
+                .addFilterAt(jwtAuthWebFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    // Tomcat is on the classpath for the servlet stack and would otherwise win; Netty gives us the event loops
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.springcrud.config;
 
+import com.example.springcrud.logging.RequestDebugFilter;
+import com.example.springcrud.logging.RequestDebugLogging;
 import com.example.springcrud.service.MyUserDetailsService;
+import com.example.springcrud.tracing.SecurityChainSpanFilter;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -12,20 +16,23 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.session.DisableEncodeUrlFilter;
 
 
 @Configuration
 @EnableWebSecurity
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class SecurityConfig {
 
 
     private final JwtAuthFilter jwtAuthFilter;
 
+    private final RequestDebugLogging requestDebugLogging;
+
     @Getter
     private final MyUserDetailsService userDetailsService;
 
@@ -33,11 +40,6 @@ public class SecurityConfig {
     private static final String API_USERS_ID = "/api/users/{id}";
 
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
@@ -51,13 +53,20 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable) // Disable CSRF for easier API testing (consider re-enabling for real apps)
                 .authorizeHttpRequests(authorize -> authorize
 
+                        // Our own endpoints change log levels per user and expose request traces
+                        .requestMatchers("/actuator/requestlogging/**", "/actuator/slowtraces/**").hasRole(ROLE_ADMIN)
                         .requestMatchers("/actuator/health", "/actuator/info", "/actuator/**").permitAll()
 
-                        .requestMatchers("/api/users/register", "/api/users/login").permitAll()
+                        .requestMatchers("/api/users/register", "/api/users/login", "/api/users/refresh",
+                                "/.well-known/jwks.json").permitAll()
 
                         // Only users with the 'ADMIN' role can get all users
                         .requestMatchers(HttpMethod.GET, "/api/users").hasRole(ROLE_ADMIN)
 
+                        .requestMatchers(HttpMethod.GET, "/api/users/export").hasRole(ROLE_ADMIN)
+
+                        .requestMatchers(HttpMethod.POST, "/api/users/import").hasRole(ROLE_ADMIN)
+
                         .requestMatchers(HttpMethod.PUT, "/api/users/update").hasAnyRole(ROLE_ADMIN, "USER")
 
 
@@ -73,7 +82,12 @@ public class SecurityConfig {
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS) // For REST APIs (no sessions, use tokens)
 
                 )
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // Per-request SQL/cache debug logging, decided once the user is known
+                .addFilterAfter(new RequestDebugFilter(requestDebugLogging), JwtAuthFilter.class)
+                // Trace markers around the whole chain (first and last filter)
+                .addFilterBefore(SecurityChainSpanFilter.opening(), DisableEncodeUrlFilter.class)
+                .addFilterAfter(SecurityChainSpanFilter.closing(), AuthorizationFilter.class);
         //.httpBasic(Customizer.withDefaults());
 
         return http.build();
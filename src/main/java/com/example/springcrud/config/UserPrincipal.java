@@ -1,6 +1,9 @@
 package com.example.springcrud.config;
 
+import com.example.springcrud.cache.CachedUser;
+import com.example.springcrud.entity.Role;
 import com.example.springcrud.entity.User; // Import your User entity
+import com.example.springcrud.util.VerifiedToken;
 import com.fasterxml.jackson.annotation.JsonIgnore; // For ignoring password in serialization
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
@@ -9,7 +12,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -34,6 +39,8 @@ public class UserPrincipal implements UserDetails {
     @JsonIgnore
     private String password;
 
+    private static final Map<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+
     // Collection of authorities (roles) granted to the user.
     private final Collection<? extends GrantedAuthority> authorities;
 
@@ -68,7 +75,8 @@ public class UserPrincipal implements UserDetails {
         // a List of SimpleGrantedAuthority objects.
         // Spring Security's hasRole() expects roles to be prefixed with "ROLE_".
         List<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .map(Role::name)
+                .map(UserPrincipal::authorityFor)
                 .collect(Collectors.toList());
 
         return new UserPrincipal(
@@ -80,6 +88,42 @@ public class UserPrincipal implements UserDetails {
         );
     }
 
+    /**
+     * Creates a principal from a cached user snapshot. Cached users never hold the password hash,
+     * so this is only meant for requests that were already authenticated by a token.
+     *
+     * @param user The cached user.
+     * @return A new UserPrincipal instance.
+     */
+    public static UserPrincipal fromCachedUser(CachedUser user) {
+        List<GrantedAuthority> authorities = user.roles().stream()
+                .map(Role::name)
+                .map(UserPrincipal::authorityFor)
+                .toList();
+
+        return new UserPrincipal(user.id(), user.username(), user.email(), null, authorities);
+    }
+
+    /**
+     * Rebuilds a principal from the claims of an already verified token, without touching the database.
+     * The password is left null: it is never needed once the request is authenticated by a JWT.
+     *
+     * @param token A verified token for which {@link VerifiedToken#hasPrincipalClaims()} is true.
+     * @return A new UserPrincipal instance.
+     */
+    public static UserPrincipal fromToken(VerifiedToken token) {
+        List<GrantedAuthority> authorities = token.roles().stream()
+                .map(UserPrincipal::authorityFor)
+                .toList();
+
+        return new UserPrincipal(token.userId(), token.subject(), token.email(), null, authorities);
+    }
+
+    // SimpleGrantedAuthority is immutable, so one instance per role is shared by every principal
+    private static GrantedAuthority authorityFor(String role) {
+        return AUTHORITIES.computeIfAbsent(role, r -> new SimpleGrantedAuthority("ROLE_" + r));
+    }
+
     // --- Implementation of UserDetails interface methods ---
 
     /**
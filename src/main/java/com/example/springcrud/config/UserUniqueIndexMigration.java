@@ -0,0 +1,122 @@
+package com.example.springcrud.config;
+
+import com.example.springcrud.util.UserConstraints;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Brings the unique indexes of an existing MySQL users table in line with the named constraints on {@code User}.
+ * Tables created before the constraints were named carry one auto-named unique index per column
+ * ({@code UK_6dotkott2kjsp8vw4d0m25fb7} and the like). Left alone, {@code ddl-auto=update} would add the
+ * {@code uk_users_*} indexes next to them, so every insert maintained two indexes per column and violations
+ * kept reporting the old names.
+ * <p>
+ * Runs before Hibernate touches the schema: the old index on each column is renamed to its constraint name,
+ * and any further duplicates (or all of them, if the named one already exists) are dropped.
+ * Other databases are left alone; they only ever see schemas created from the current mapping.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class UserUniqueIndexMigration {
+
+    static final String TABLE = "users";
+
+    // Column -> the name its unique constraint must have
+    static final Map<String, String> CONSTRAINTS = Map.of(
+            "username", UserConstraints.UNIQUE_USERNAME,
+            "email", UserConstraints.UNIQUE_EMAIL,
+            "fullname", UserConstraints.UNIQUE_FULLNAME);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserUniqueIndexMigration(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnUniqueIndexMigration() {
+        return new EntityManagerFactoryDependsOnPostProcessor("userUniqueIndexMigration");
+    }
+
+    @PostConstruct
+    public void migrate() {
+        Map<String, List<String>> uniqueIndexes = jdbcTemplate.execute((ConnectionCallback<Map<String, List<String>>>) con -> {
+            DatabaseMetaData metaData = con.getMetaData();
+            String product = metaData.getDatabaseProductName().toLowerCase(Locale.ROOT);
+            if (!product.contains("mysql") && !product.contains("mariadb")) {
+                return Map.of();
+            }
+            return uniqueIndexColumns(metaData, con.getCatalog());
+        });
+
+        for (String statement : plan(uniqueIndexes)) {
+            log.info("Migrating unique indexes of {}: {}", TABLE, statement);
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+    /**
+     * @return Every unique index on the table except the primary key, with its columns in index order.
+     */
+    private static Map<String, List<String>> uniqueIndexColumns(DatabaseMetaData metaData, String catalog)
+            throws SQLException {
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(catalog, null, TABLE, true, false)) {
+            while (rs.next()) {
+                String index = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (index == null || column == null || "PRIMARY".equalsIgnoreCase(index)) {
+                    continue;
+                }
+                indexes.computeIfAbsent(index, i -> new ArrayList<>()).add(column.toLowerCase(Locale.ROOT));
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Works out the statements that leave exactly one unique index per constrained column, named after its constraint.
+     *
+     * @param uniqueIndexes Index name -> its columns; composite indexes are never touched.
+     */
+    static List<String> plan(Map<String, List<String>> uniqueIndexes) {
+        List<String> statements = new ArrayList<>();
+        CONSTRAINTS.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(constraint -> {
+            String target = constraint.getValue();
+            List<String> onColumn = uniqueIndexes.entrySet().stream()
+                    .filter(index -> index.getValue().equals(List.of(constraint.getKey())))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            boolean named = onColumn.stream().anyMatch(target::equalsIgnoreCase);
+            for (String index : onColumn) {
+                if (index.equalsIgnoreCase(target)) {
+                    continue;
+                }
+                if (!named) {
+                    statements.add("alter table " + TABLE + " rename index `" + index + "` to `" + target + "`");
+                    named = true;
+                } else {
+                    statements.add("alter table " + TABLE + " drop index `" + index + "`");
+                }
+            }
+        });
+        return statements;
+    }
+}
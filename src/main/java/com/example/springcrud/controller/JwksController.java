@@ -0,0 +1,35 @@
+package com.example.springcrud.controller;
+
+import com.example.springcrud.util.JwtKeyRing;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Publishes the public halves of the token signing keys, so other services can verify our tokens locally.
+ * Serves both the servlet and the reactive stack.
+ */
+@RestController
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    // JwtKeyRing refuses to start unless max-age plus the key reload interval stays below the activation delay,
+    // so no verifier can see a token signed with a key it has not fetched
+    private final CacheControl cacheControl;
+
+    public JwksController(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.cacheControl = CacheControl.maxAge(keyRing.jwksMaxAge()).cachePublic();
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .body(keyRing.jwks());
+    }
+}
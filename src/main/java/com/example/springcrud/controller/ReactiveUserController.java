@@ -0,0 +1,115 @@
+package com.example.springcrud.controller;
+
+import com.example.springcrud.config.UserPrincipal;
+import com.example.springcrud.model.request.DeleteAccountRequest;
+import com.example.springcrud.model.request.LoginRequest;
+import com.example.springcrud.model.request.RefreshTokenRequest;
+import com.example.springcrud.model.request.UpdateUserRequest;
+import com.example.springcrud.model.request.UserRequest;
+import com.example.springcrud.model.response.ApiResponse;
+import com.example.springcrud.model.response.UserPageResponse;
+import com.example.springcrud.model.response.UserResponse;
+import com.example.springcrud.ratelimit.LoginThrottle;
+import com.example.springcrud.service.ReactiveUserService;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * The {@link UserController} endpoints on WebFlux, active with the reactive profile.
+ * Same paths, request and response bodies; every handler returns without blocking the event loop.
+ */
+@RestController
+@RequestMapping("/api/users")
+@Profile("reactive")
+public class ReactiveUserController {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ReactiveUserService userService;
+    private final LoginThrottle loginThrottle;
+
+    public ReactiveUserController(ReactiveUserService userService, LoginThrottle loginThrottle) {
+        this.userService = userService;
+        this.loginThrottle = loginThrottle;
+    }
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<ApiResponse>> registerUser(@Valid @RequestBody UserRequest registerRequest) {
+        return userService.registerUser(registerRequest)
+                .then(Mono.fromSupplier(() -> new ResponseEntity<>(ApiResponse.builder()
+                        .message("Registration successful")
+                        .build(), HttpStatus.CREATED)));
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<ApiResponse>> loginUser(@Valid @RequestBody LoginRequest request,
+                                                       ServerHttpRequest httpRequest) {
+        InetSocketAddress remote = httpRequest.getRemoteAddress();
+        loginThrottle.checkAttempt(request.getUsername(),
+                remote != null && remote.getAddress() != null ? remote.getAddress().getHostAddress() : null);
+
+        return userService.loginAndGetToken(request.getUsername(), request.getPassword())
+                .doOnNext(tokens -> loginThrottle.loginSucceeded(request.getUsername()))
+                .map(tokens -> ResponseEntity.ok(ApiResponse.withTokens("Login Successfully", tokens)));
+    }
+
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<ApiResponse>> refreshTokens(@Valid @RequestBody RefreshTokenRequest request) {
+        return userService.refreshTokens(request.getRefreshToken())
+                .map(tokens -> ResponseEntity.ok(ApiResponse.withTokens("Token refreshed", tokens)));
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<ApiResponse>> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                                    @RequestBody(required = false) RefreshTokenRequest request) {
+        userService.logout(authorization.substring(BEARER_PREFIX.length()),
+                request != null ? request.getRefreshToken() : null);
+        return Mono.just(ResponseEntity.ok(ApiResponse.builder()
+                .message("Logged out")
+                .build()));
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<UserPageResponse>> getAllUsers(@RequestParam(required = false) Long after,
+                                                              @RequestParam(defaultValue = "50") int size) {
+        return userService.getUsersPage(after, size).map(ResponseEntity::ok);
+    }
+
+    // Newline-delimited JSON, written element by element as rows arrive from the driver
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserResponse> streamAllUsers(@RequestParam(defaultValue = "0") long after) {
+        return userService.streamUsers(after);
+    }
+
+    @GetMapping("/me")
+    public Mono<ResponseEntity<UserResponse>> getMyProfile(@AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return userService.getUserProfileById(userPrincipal.getId()).map(ResponseEntity::ok);
+    }
+
+    @PutMapping("/update")
+    public Mono<ResponseEntity<ApiResponse>> updateUser(@Valid @RequestBody UpdateUserRequest request,
+                                                        @AuthenticationPrincipal UserPrincipal loggedInUser) {
+        return userService.updateUserByOwnerOrAdmin(request, loggedInUser)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok(ApiResponse.builder()
+                        .message("Update successful")
+                        .build())));
+    }
+
+    @DeleteMapping("/delete-direct")
+    public Mono<ResponseEntity<ApiResponse>> directDeleteUser(@Valid @RequestBody DeleteAccountRequest request,
+                                                              @AuthenticationPrincipal UserPrincipal loggedInUser) {
+        return userService.deleteUser(request, loggedInUser)
+                .then(Mono.fromSupplier(() -> new ResponseEntity<ApiResponse>(HttpStatus.NO_CONTENT)));
+    }
+}
@@ -4,70 +4,186 @@ package com.example.springcrud.controller;
 import com.example.springcrud.config.UserPrincipal;
 import com.example.springcrud.model.request.DeleteAccountRequest;
 import com.example.springcrud.model.request.LoginRequest;
+import com.example.springcrud.model.request.RefreshTokenRequest;
 import com.example.springcrud.model.request.UpdateUserRequest;
 import com.example.springcrud.model.response.ApiResponse;
+import com.example.springcrud.model.response.ImportResponse;
+import com.example.springcrud.model.response.UserPageResponse;
 import com.example.springcrud.model.response.UserResponse;
+import com.example.springcrud.ratelimit.LoginThrottle;
+import com.example.springcrud.service.UserExportService;
+import com.example.springcrud.service.UserImportService;
 import com.example.springcrud.service.UserService;
+import com.example.springcrud.util.TokenPair;
+import com.example.springcrud.util.UserImportReader;
 import com.example.springcrud.model.request.UserRequest;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid; // Import for @Valid annotation
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.context.annotation.Profile;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
     private final UserService userService;
 
+    private final UserImportService userImportService;
+
+    private final UserExportService userExportService;
+
+    private final LoginThrottle loginThrottle;
+
+    // Streamed responses outlive the default async timeout, so each gets its own
+    private final Duration streamTimeout;
+
+    private final Duration exportTimeout;
+
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserImportService userImportService,
+                          UserExportService userExportService, LoginThrottle loginThrottle,
+                          @Value("${app.users.stream-timeout:1h}") Duration streamTimeout,
+                          @Value("${app.users.export.timeout:1h}") Duration exportTimeout) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.userExportService = userExportService;
+        this.loginThrottle = loginThrottle;
+        this.streamTimeout = streamTimeout;
+        this.exportTimeout = exportTimeout;
     }
 
     // --- Registration (Create) - NOW WITH VALIDATION AND DTO ---
 
+    // Password hashing runs on its own bounded pool, so the request thread is released while it works
+
     @PostMapping("/register")
-    public ResponseEntity<ApiResponse> registerUser(@Valid @RequestBody UserRequest registerRequest) {
-        userService.registerUser(registerRequest); // Pass DTO directly to service
+    public CompletableFuture<ResponseEntity<ApiResponse>> registerUser(@Valid @RequestBody UserRequest registerRequest) {
+        return userService.registerUser(registerRequest) // Pass DTO directly to service
+                .thenApply(ignored -> {
+                    ApiResponse response = ApiResponse.builder()
+                            .message("Registration successful")
+                            .build();
+
+                    return new ResponseEntity<>(response, HttpStatus.CREATED);
+                });
+    }
 
-        ApiResponse response = ApiResponse.builder()
-                .message("Registration successful")
-                .build();
 
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    @PostMapping("/login")
+    public CompletableFuture<ResponseEntity<ApiResponse>> loginUser(@Valid @RequestBody LoginRequest request,
+                                                                    HttpServletRequest httpRequest) {
+        // Rejected attempts never reach the database or the hashing pool
+        loginThrottle.checkAttempt(request.getUsername(), httpRequest.getRemoteAddr());
+
+        return userService.loginAndGetToken(request.getUsername(), request.getPassword())
+                .thenApply(tokens -> {
+                    loginThrottle.loginSucceeded(request.getUsername());
+                    return ResponseEntity.ok(ApiResponse.withTokens("Login Successfully", tokens));
+                });
     }
 
+    // Swaps a refresh token for a new access/refresh pair; the old refresh token stops working
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse> refreshTokens(@Valid @RequestBody RefreshTokenRequest request) {
+        TokenPair tokens = userService.refreshTokens(request.getRefreshToken());
 
-    @PostMapping("/login")
-    public ResponseEntity<ApiResponse> loginUser(@Valid @RequestBody LoginRequest request) {
-        String token = userService.loginAndGetToken(request.getUsername(), request.getPassword());
+        return ResponseEntity.ok(ApiResponse.withTokens("Token refreshed", tokens));
+    }
 
-        ApiResponse response = ApiResponse.builder()
-                .message("Login Successfully")
-                .token(token)
-                .build();
+    // Revokes the calling access token and, when the body names it, the session's refresh token
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                              @RequestBody(required = false) RefreshTokenRequest request) {
+        userService.logout(authorization.substring(BEARER_PREFIX.length()),
+                request != null ? request.getRefreshToken() : null);
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(ApiResponse.builder()
+                .message("Logged out")
+                .build());
+    }
+
+    // Keyset pagination: pass the previous page's nextCursor as 'after'; size is capped server-side
+    @GetMapping
+    public ResponseEntity<UserPageResponse> getAllUsers(@RequestParam(required = false) Long after,
+                                                        @RequestParam(defaultValue = "50") int size) {
+        UserPageResponse page = userService.getUsersPage(after, size);
+
+        return ResponseEntity.ok(page);
+    }
+
+    // Same listing as newline-delimited JSON, streamed in keyset chunks (Accept: application/x-ndjson)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> streamAllUsers(@RequestParam(defaultValue = "0") long after, HttpServletResponse response) {
+        UserService.UserStream stream = userService.startStream(after);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        WebAsyncTask<Void> task = new WebAsyncTask<>(streamTimeout.toMillis(), () -> {
+            stream.writeTo(response.getOutputStream());
+            return null;
+        });
+        task.onCompletion(stream::release);
+        return task;
     }
 
 
 
+    // Full dump (admin only) as gzip-compressed CSV or NDJSON; resume an interrupted export with after=<last id received>
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportUsers(@RequestParam(defaultValue = "csv") String format,
+                                          @RequestParam(defaultValue = "0") long after, HttpServletResponse response) {
+        UserExportService.Format exportFormat = "ndjson".equalsIgnoreCase(format)
+                ? UserExportService.Format.NDJSON
+                : UserExportService.Format.CSV;
+        UserExportService.Export export = userExportService.start(exportFormat, after);
+
+        response.setContentType("application/gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("users-after-" + after + "." + exportFormat.extension() + ".gz")
+                .build()
+                .toString());
+
+        WebAsyncTask<Void> task = new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            export.writeTo(response.getOutputStream());
+            return null;
+        });
+        // Runs however the async request ends, so the slot comes back even if the body never started
+        task.onCompletion(export::release);
+        return task;
+    }
 
-    @GetMapping
-    public ResponseEntity<?> getAllUsers() {
-        List<UserResponse> users = userService.getAllUsers();
+    // Bulk registration (admin only): CSV with a fullname,username,email,password header, or NDJSON of UserRequest.
+    // The body is read as a stream and processed in batches; the response lists the outcome of every line.
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportResponse> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                      InputStream body) throws IOException {
+        UserImportReader.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? UserImportReader.Format.NDJSON
+                : UserImportReader.Format.CSV;
 
-        return ResponseEntity.ok(users);
+        return ResponseEntity.ok(userImportService.importUsers(body, format));
     }
 
 
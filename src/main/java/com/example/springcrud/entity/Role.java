@@ -0,0 +1,36 @@
+package com.example.springcrud.entity;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Roles a user can hold. Stored by name in the user_roles table, so existing rows keep working.
+ * In memory a set of roles can be reduced to a single int bitmask, one bit per constant.
+ */
+public enum Role {
+    USER,
+    ADMIN;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static int toMask(Collection<Role> roles) {
+        int mask = 0;
+        for (Role role : roles) {
+            mask |= role.bit();
+        }
+        return mask;
+    }
+
+    public static Set<Role> fromMask(int mask) {
+        EnumSet<Role> roles = EnumSet.noneOf(Role.class);
+        for (Role role : values()) {
+            if ((mask & role.bit()) != 0) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+}
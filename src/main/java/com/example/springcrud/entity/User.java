@@ -1,31 +1,41 @@
 package com.example.springcrud.entity;
 
 import jakarta.persistence.*;
+import com.example.springcrud.util.SnowflakeId;
+import com.example.springcrud.util.UserConstraints;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users") // Good practice to explicitly name your table
+// Unique constraints are named so that a violation can be mapped back to the field (see UserConstraints)
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = UserConstraints.UNIQUE_FULLNAME, columnNames = "fullname"),
+        @UniqueConstraint(name = UserConstraints.UNIQUE_USERNAME, columnNames = "username"),
+        @UniqueConstraint(name = UserConstraints.UNIQUE_EMAIL, columnNames = "email")
+})
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor // Lombok: Generates a no-argument constructor
-@ToString(exclude = "password") // Lombok: Generates toString, exclude password for security
+@ToString(exclude = {"password", "roles"}) // Lombok: Generates toString, exclude password for security and lazy roles
 public class User {
 
+    // Assigned in memory before the INSERT (time-ordered, so keyset pagination still follows creation order);
+    // unlike IDENTITY this leaves Hibernate free to batch and reorder inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String fullname;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String username;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
    // @JsonIgnore // Ensures password is not serialized in JSON responses
@@ -33,17 +43,15 @@ public class User {
     private String password;
 
     // Roles for the user (e.g., "ADMIN", "USER")
-    // @ElementCollection maps a collection of simple types to a separate table
-// Roles for the user (e.g., "ADMIN", "USER")
-
-// @ElementCollection maps a collection of simple types to a separate table
-
-    @ElementCollection(fetch = FetchType.EAGER) // Fetch roles eagerly when User is loaded
-
+    // @ElementCollection maps a collection of simple types to a separate table.
+    // Loaded lazily: read paths that need roles fetch them with an entity graph (one join),
+    // and anything else falls back to batched IN selects instead of one select per user.
+    @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id")) // Join table for roles
-
+    @Enumerated(EnumType.STRING)
     @Column(name = "role") // Column in 'user_roles' table
-    private Set<String> roles = new HashSet<>();
+    @BatchSize(size = 100)
+    private Set<Role> roles = EnumSet.noneOf(Role.class);
 
     // Custom constructor for easier object creation
     public User(String fullname, String username, String email, String password) {
@@ -51,7 +59,7 @@ public class User {
         this.username = username;
         this.email = email;
         this.password = password;
-        this.roles.add("USER"); // Assign default 'USER' role when new user is created via this constructor
+        this.roles.add(Role.USER); // Assign default 'USER' role when new user is created via this constructor
     }
 
 
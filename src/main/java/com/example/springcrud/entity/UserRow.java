@@ -0,0 +1,34 @@
+package com.example.springcrud.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * R2DBC mapping of the users table for the reactive profile.
+ * Same table as {@link User}; R2DBC has no element collections, so roles are read and
+ * written through user_roles explicitly by the reactive repository.
+ */
+@Table("users")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString(exclude = "password")
+public class UserRow {
+
+    @Id
+    private Long id;
+
+    private String fullname;
+
+    private String username;
+
+    private String email;
+
+    private String password;
+}
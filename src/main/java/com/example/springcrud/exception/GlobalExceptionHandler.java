@@ -1,18 +1,22 @@
 package com.example.springcrud.exception;
 
 import com.example.springcrud.model.response.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.util.HashMap;
 import java.util.Map;
 
-@ControllerAdvice // This annotation makes this class capable of handling exceptions across the entire application
+@ControllerAdvice // This annotation makes this class capable of handling exceptions across the entire application (servlet and reactive)
 public class GlobalExceptionHandler {
 
     // Constants for common map keys
@@ -25,7 +29,7 @@ public class GlobalExceptionHandler {
 
     // Handles validation errors specifically for @Valid and @RequestBody
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Object> handleValidationExceptions(MethodArgumentNotValidException ex, WebRequest request) {
+    public ResponseEntity<Object> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
         // Iterate through all validation errors and collect them
         ex.getBindingResult().getAllErrors().forEach(error -> {
@@ -43,9 +47,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
+    // Same validation errors on the reactive stack, which reports them as WebExchangeBindException
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Object> handleReactiveValidationExceptions(WebExchangeBindException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getFieldErrors().forEach(error -> errors.put(error.getField(), error.getDefaultMessage()));
+
+        Map<String, Object> body = new HashMap<>();
+        body.put(STATUS, HttpStatus.BAD_REQUEST.value());
+        body.put(ERROR, "Bad Request");
+        body.put(MESSAGE, "Validation Failed");
+        body.put(DETAILS, errors);
+
+        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    }
+
     // You can add more @ExceptionHandler methods here for other custom exceptions
     @ExceptionHandler(UserNotFoundException.class)
-    public ResponseEntity<Object> handleUserNotFoundException(UserNotFoundException ex, WebRequest request) {
+    public ResponseEntity<Object> handleUserNotFoundException(UserNotFoundException ex) {
         Map<String, Object> body = new HashMap<>();
         body.put(STATUS, HttpStatus.NOT_FOUND.value());
         body.put(ERROR, "Not Found");
@@ -56,7 +75,7 @@ public class GlobalExceptionHandler {
 
     // Generic exception handler for any other unhandled exceptions
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Object> handleAllUncaughtException(Exception ex, WebRequest request) {
+    public ResponseEntity<Object> handleAllUncaughtException(Exception ex) {
         Map<String, Object> body = new HashMap<>();
         body.put(STATUS, HttpStatus.INTERNAL_SERVER_ERROR.value());
         body.put(ERROR, "Internal Server Error");
@@ -66,7 +85,7 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler(InvalidInputException.class)
-    public ResponseEntity<Object> handleInvalidException(InvalidInputException ex, WebRequest request) {
+    public ResponseEntity<Object> handleInvalidException(InvalidInputException ex) {
         Map<String, Object> body = new HashMap<>();
         body.put(STATUS, HttpStatus.BAD_REQUEST.value()); // Often a 400 Bad Request for invalid input
         body.put(ERROR, "Invalid Input");
@@ -76,7 +95,7 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler(UserOperationException.class)
-    public ResponseEntity<Object> handleUserOperationException(UserOperationException ex, WebRequest request) {
+    public ResponseEntity<Object> handleUserOperationException(UserOperationException ex) {
         Map<String, Object> body = new HashMap<>();
         body.put(STATUS, HttpStatus.INTERNAL_SERVER_ERROR.value());
         body.put(ERROR, "User Operation Failed");
@@ -94,8 +113,42 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Object> handleServiceBusy(ServiceBusyException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put(STATUS, HttpStatus.SERVICE_UNAVAILABLE.value()); // 503, the client should back off and retry
+        body.put(ERROR, "Service Unavailable");
+        body.put(MESSAGE, ex.getMessage());
+
+        // Fixed content type, so clients of the NDJSON listing (Accept: application/x-ndjson) get the 503 as well
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Object> handleTooManyRequests(TooManyRequestsException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put(STATUS, HttpStatus.TOO_MANY_REQUESTS.value()); // 429, throttled before any credential check
+        body.put(ERROR, "Too Many Requests");
+        body.put(MESSAGE, ex.getMessage());
+
+        // Whole seconds, rounded up so a client that honours the header is not rejected again
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(body);
+    }
+
+    // No database connection within the acquire timeout: the pool (or its permit guard) is saturated
+    @ExceptionHandler({CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class})
+    public ResponseEntity<Object> handleDatabaseBusy(Exception ex) {
+        return handleServiceBusy(new ServiceBusyException("Database is busy, please retry shortly."));
+    }
+
     @ExceptionHandler(UserIsPresentException.class)
-    public ResponseEntity<Object> handle(UserIsPresentException ex, WebRequest request) {
+    public ResponseEntity<Object> handle(UserIsPresentException ex) {
         Map<String, Object> body = new HashMap<>();
         body.put(STATUS, HttpStatus.CONFLICT.value()); // 409 Conflict
         body.put(ERROR, "Conflict");
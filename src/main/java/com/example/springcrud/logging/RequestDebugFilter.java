@@ -0,0 +1,46 @@
+package com.example.springcrud.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Marks requests picked by {@link RequestDebugLogging} with the debug MDC entry for the rest of the chain.
+ * Sits right behind the JWT filter so the user is already known.
+ * Not a bean on purpose: Spring Boot would otherwise also register it with the servlet container.
+ */
+public class RequestDebugFilter extends OncePerRequestFilter {
+
+    private final RequestDebugLogging debugLogging;
+
+    public RequestDebugFilter(RequestDebugLogging debugLogging) {
+        this.debugLogging = debugLogging;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+
+        if (!debugLogging.shouldDebug(username)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        MDC.put(RequestDebugTurboFilter.MDC_KEY, username != null ? username : "sampled");
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(RequestDebugTurboFilter.MDC_KEY);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.springcrud.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which requests get verbose SQL/cache logging: every request of the users on the watch list,
+ * plus a random sample of all traffic. Both can be changed at runtime through
+ * {@code /actuator/requestlogging}; with an empty list and a rate of 0 nothing is logged and the
+ * logging hot path pays only for a volatile read.
+ * <p>
+ * The turbo filter is added to the Logback context here rather than in logback-spring.xml, so it is
+ * loaded by the application class loader and survives devtools restarts cleanly.
+ */
+@Component
+@Slf4j
+public class RequestDebugLogging {
+
+    private final RequestDebugTurboFilter turboFilter;
+    private final LoggerContext loggerContext;
+
+    private volatile Set<String> usernames = Set.of();
+    private volatile double sampleRate;
+
+    public RequestDebugLogging(@Value("${app.logging.request-debug.loggers:org.hibernate.SQL,org.hibernate.orm.jdbc.bind,"
+                                       + "org.springframework.cache,com.example.springcrud.cache}") List<String> loggers,
+                               @Value("${app.logging.request-debug.sample-rate:0}") double sampleRate) {
+        this.turboFilter = new RequestDebugTurboFilter(loggers);
+        ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+        this.loggerContext = loggerFactory instanceof LoggerContext context ? context : null;
+        this.sampleRate = sampleRate;
+        rearm();
+    }
+
+    @PostConstruct
+    public void register() {
+        if (loggerContext == null) {
+            log.warn("Per-request debug logging needs Logback; it is disabled");
+            return;
+        }
+        turboFilter.start();
+        loggerContext.addTurboFilter(turboFilter);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        if (loggerContext != null) {
+            loggerContext.getTurboFilterList().remove(turboFilter);
+        }
+    }
+
+    /**
+     * Called once per request, after authentication; {@code username} is null for anonymous requests.
+     */
+    public boolean shouldDebug(String username) {
+        double rate = sampleRate;
+        Set<String> watched = usernames;
+        return (username != null && !watched.isEmpty() && watched.contains(username))
+                || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    public Set<String> usernames() {
+        return usernames;
+    }
+
+    public double sampleRate() {
+        return sampleRate;
+    }
+
+    public synchronized void watch(String username) {
+        Set<String> updated = new TreeSet<>(usernames);
+        updated.add(username);
+        usernames = Set.copyOf(updated);
+        rearm();
+        log.info("Debug logging enabled for requests of user '{}'", username);
+    }
+
+    public synchronized void unwatch(String username) {
+        Set<String> updated = new TreeSet<>(usernames);
+        updated.remove(username);
+        usernames = Set.copyOf(updated);
+        rearm();
+    }
+
+    public synchronized void setSampleRate(double sampleRate) {
+        this.sampleRate = Math.clamp(sampleRate, 0.0, 1.0);
+        rearm();
+        log.info("Debug logging sample rate set to {}", this.sampleRate);
+    }
+
+    public synchronized void reset() {
+        usernames = Set.of();
+        sampleRate = 0;
+        rearm();
+    }
+
+    private void rearm() {
+        turboFilter.setArmed(!usernames.isEmpty() || sampleRate > 0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.springcrud.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.List;
+
+/**
+ * Lets DEBUG and TRACE events of selected loggers through, whatever their configured level, while the
+ * current thread carries the {@value #MDC_KEY} MDC entry. That way SQL and cache logging can be
+ * enabled for individual requests while the loggers themselves stay at INFO.
+ * <p>
+ * Logback consults turbo filters on every logging call, including {@code isDebugEnabled()} checks, so
+ * the filter does nothing beyond a volatile read until {@link #setArmed arming}.
+ */
+class RequestDebugTurboFilter extends TurboFilter {
+
+    static final String MDC_KEY = "debug";
+
+    private final List<String> loggerPrefixes;
+
+    private volatile boolean armed;
+
+    RequestDebugTurboFilter(List<String> loggerPrefixes) {
+        this.loggerPrefixes = List.copyOf(loggerPrefixes);
+        setName("request-debug");
+    }
+
+    void setArmed(boolean armed) {
+        this.armed = armed;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!armed || level.isGreaterOrEqual(Level.INFO) || MDC.get(MDC_KEY) == null) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        for (String prefix : loggerPrefixes) {
+            if (name.startsWith(prefix)) {
+                return FilterReply.ACCEPT;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
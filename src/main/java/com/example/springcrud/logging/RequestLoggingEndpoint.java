@@ -0,0 +1,55 @@
+package com.example.springcrud.logging;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/requestlogging}: turns per-request SQL/cache debug logging on and off at runtime.
+ * <ul>
+ *     <li>POST {@code {"username": "alice"}} logs every request of that user;</li>
+ *     <li>POST {@code {"sampleRate": 0.01}} logs a random share of all requests;</li>
+ *     <li>DELETE with {@code ?username=alice} stops watching one user, without it turns everything off.</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "requestlogging")
+public class RequestLoggingEndpoint {
+
+    private final RequestDebugLogging debugLogging;
+
+    public RequestLoggingEndpoint(RequestDebugLogging debugLogging) {
+        this.debugLogging = debugLogging;
+    }
+
+    @ReadOperation
+    public Map<String, Object> state() {
+        return Map.of("usernames", debugLogging.usernames(), "sampleRate", debugLogging.sampleRate());
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Nullable String username, @Nullable Double sampleRate) {
+        if (username != null && !username.isBlank()) {
+            debugLogging.watch(username);
+        }
+        if (sampleRate != null) {
+            debugLogging.setSampleRate(sampleRate);
+        }
+        return state();
+    }
+
+    @DeleteOperation
+    public Map<String, Object> disable(@Nullable String username) {
+        if (username != null) {
+            debugLogging.unwatch(username);
+        } else {
+            debugLogging.reset();
+        }
+        return state();
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.springcrud.model.projection;
+
+/**
+ * The unique keys of a user, for uniqueness checks that need nothing else.
+ */
+public record UserIdentity(String username, String email) {
+}
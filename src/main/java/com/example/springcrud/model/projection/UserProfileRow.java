@@ -0,0 +1,10 @@
+package com.example.springcrud.model.projection;
+
+import com.example.springcrud.entity.Role;
+
+/**
+ * A user's public columns joined with one of their roles; a user with several roles yields several rows.
+ * The role is null for a user without any.
+ */
+public record UserProfileRow(Long id, String fullname, String username, String email, Role role) {
+}
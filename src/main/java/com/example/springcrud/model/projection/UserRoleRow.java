@@ -0,0 +1,9 @@
+package com.example.springcrud.model.projection;
+
+import com.example.springcrud.entity.Role;
+
+/**
+ * One (user, role) pair from the user_roles table.
+ */
+public record UserRoleRow(Long userId, Role role) {
+}
@@ -0,0 +1,8 @@
+package com.example.springcrud.model.projection;
+
+/**
+ * Public columns of a user, selected directly into a DTO so read paths never load the
+ * password hash or register an entity in the persistence context.
+ */
+public record UserSummary(Long id, String fullname, String username, String email) {
+}
@@ -1,5 +1,6 @@
 package com.example.springcrud.model.response;
 
+import com.example.springcrud.util.TokenPair;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,6 +18,21 @@ public class ApiResponse {
 
     private String message;
 
+    // The access token; kept under its old name so existing clients keep working
     private String token;
 
+    private String refreshToken;
+
+    // Seconds until 'token' expires
+    private Long expiresIn;
+
+    public static ApiResponse withTokens(String message, TokenPair tokens) {
+        return ApiResponse.builder()
+                .message(message)
+                .token(tokens.accessToken())
+                .refreshToken(tokens.refreshToken())
+                .expiresIn(tokens.expiresIn())
+                .build();
+    }
+
 }
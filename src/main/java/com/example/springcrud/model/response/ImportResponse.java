@@ -0,0 +1,31 @@
+package com.example.springcrud.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Summary of a bulk user import plus the outcome of every line, in upload order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportResponse {
+
+    private int created;
+
+    private int duplicates;
+
+    private int invalid;
+
+    private int failed;
+
+    // True if the upload exceeded the row limit and its tail was not processed
+    private boolean truncated;
+
+    private List<ImportRowResult> results;
+}
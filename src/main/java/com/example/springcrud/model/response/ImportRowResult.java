@@ -0,0 +1,28 @@
+package com.example.springcrud.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one line of a bulk user import.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportRowResult {
+
+    // NOT_PROCESSED: the upload went past the row limit here; nothing from this line on was read
+    public enum Status { CREATED, DUPLICATE, INVALID, FAILED, NOT_PROCESSED }
+
+    private int line;
+
+    private String username;
+
+    private Status status;
+
+    // Why the row was not created; absent for created rows
+    private String message;
+}
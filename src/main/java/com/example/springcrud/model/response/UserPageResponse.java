@@ -0,0 +1,27 @@
+package com.example.springcrud.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of users in id order. Pass {@code nextCursor} back as {@code after} to fetch the next page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserPageResponse {
+
+    private List<UserResponse> items;
+
+    // Id of the last user on this page; null when there is nothing after it
+    private Long nextCursor;
+
+    private boolean hasMore;
+}
@@ -0,0 +1,95 @@
+package com.example.springcrud.ratelimit;
+
+import com.example.springcrud.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Throttles login attempts per username and per client address before any database or BCrypt work.
+ * The username limit stops guessing against one account; the address limit stops one client spraying
+ * many accounts (credential stuffing). An attempt has to pass both. A successful login hands its username
+ * token back, so only failed attempts add up against an account; the address limit counts every attempt.
+ * Rejections are counted in {@code login.throttle.rejected}, tagged by the limit that fired.
+ */
+@Component
+@Slf4j
+public class LoginThrottle {
+
+    private final TokenBucketLimiter byUsername;
+    private final TokenBucketLimiter byAddress;
+    private final Counter usernameRejections;
+    private final Counter addressRejections;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${app.login.throttle.username.burst:5}") int usernameBurst,
+                         @Value("${app.login.throttle.username.refill:12s}") Duration usernameRefill,
+                         @Value("${app.login.throttle.address.burst:20}") int addressBurst,
+                         @Value("${app.login.throttle.address.refill:1s}") Duration addressRefill,
+                         @Value("${app.login.throttle.max-keys:100000}") long maxKeys) {
+        this.byUsername = new TokenBucketLimiter(usernameBurst, usernameRefill, maxKeys);
+        this.byAddress = new TokenBucketLimiter(addressBurst, addressRefill, maxKeys);
+
+        this.usernameRejections = rejectedCounter(meterRegistry, "username");
+        this.addressRejections = rejectedCounter(meterRegistry, "address");
+        Gauge.builder("login.throttle.keys", byUsername, TokenBucketLimiter::trackedKeys)
+                .tag("limit", "username")
+                .register(meterRegistry);
+        Gauge.builder("login.throttle.keys", byAddress, TokenBucketLimiter::trackedKeys)
+                .tag("limit", "address")
+                .register(meterRegistry);
+
+        log.info("Login throttle: {} attempts per username (+1 every {}), {} per address (+1 every {})",
+                usernameBurst, usernameRefill, addressBurst, addressRefill);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, String limit) {
+        return Counter.builder("login.throttle.rejected")
+                .description("Login attempts refused before credentials were checked")
+                .tag("limit", limit)
+                .register(registry);
+    }
+
+    /**
+     * Takes one attempt from both buckets.
+     *
+     * @throws TooManyRequestsException If either limit is exhausted.
+     */
+    public void checkAttempt(String username, String clientAddress) {
+        // The address goes first: a client that is over its limit should not drain the victim's bucket too
+        if (clientAddress != null) {
+            long wait = byAddress.tryAcquire(clientAddress);
+            if (wait > 0) {
+                addressRejections.increment();
+                throw rejected(wait);
+            }
+        }
+        if (username != null) {
+            // MySQL's default collation compares usernames case-insensitively, so the buckets must as well
+            long wait = byUsername.tryAcquire(username.toLowerCase(Locale.ROOT));
+            if (wait > 0) {
+                usernameRejections.increment();
+                throw rejected(wait);
+            }
+        }
+    }
+
+    /**
+     * Returns the username token taken by {@link #checkAttempt}, once the password has matched.
+     */
+    public void loginSucceeded(String username) {
+        if (username != null) {
+            byUsername.release(username.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private static TooManyRequestsException rejected(long waitNanos) {
+        return new TooManyRequestsException("Too many login attempts, please retry later.", Duration.ofNanos(waitNanos));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.springcrud.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keyed token buckets, implemented as GCRA (generic cell rate algorithm): each key holds a single
+ * "theoretical arrival time" in an {@link AtomicLong}, and taking a token is one compare-and-set.
+ * Refill is implicit, so there are no timers and no locks. Keys live in a size-bounded Caffeine map,
+ * whose hash table is already striped across bins.
+ * <p>
+ * A key that has been idle for {@code burst} refill intervals is back to a full bucket, so that is when
+ * it expires. Evicting it loses nothing. If the key limit is reached first, Caffeine's frequency-based
+ * eviction keeps the hot keys, which are the ones under attack.
+ */
+public final class TokenBucketLimiter {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    /**
+     * @param burst       Attempts a fresh key may make back to back.
+     * @param refillEvery Time until one more attempt becomes available.
+     * @param maxKeys     Upper bound on tracked keys.
+     */
+    public TokenBucketLimiter(int burst, Duration refillEvery, long maxKeys) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst must be at least 1 but was " + burst);
+        }
+        this.intervalNanos = refillEvery.toNanos();
+        this.capacityNanos = intervalNanos * burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(capacityNanos))
+                .build();
+    }
+
+    /**
+     * Takes one token for the key if there is one.
+     *
+     * @return 0 if the attempt is allowed, otherwise the nanoseconds until it would be.
+     */
+    public long tryAcquire(String key) {
+        AtomicLong arrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = System.nanoTime();
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long overdraft = next - now - capacityNanos;
+            if (overdraft > 0) {
+                return overdraft;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire}. A key that has been evicted is full already.
+     */
+    public void release(String key) {
+        AtomicLong arrival = buckets.getIfPresent(key);
+        if (arrival != null) {
+            arrival.getAndUpdate(current -> current == Long.MIN_VALUE ? current : current - intervalNanos);
+        }
+    }
+
+    public long trackedKeys() {
+        return buckets.estimatedSize();
+    }
+}
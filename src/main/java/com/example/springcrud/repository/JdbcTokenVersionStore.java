@@ -0,0 +1,65 @@
+package com.example.springcrud.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link TokenVersionStore} on the application database. Writes join the caller's transaction, so a version
+ * is only stored if the password change or deletion that bumped it commits.
+ */
+@Repository
+@Profile("!reactive")
+public class JdbcTokenVersionStore implements TokenVersionStore {
+
+    static final String CREATE_TABLE_SQL = """
+            create table if not exists user_token_versions (
+                user_id bigint primary key,
+                version int not null,
+                updated_at timestamp not null
+            )""";
+
+    static final String UPSERT_SQL = """
+            insert into user_token_versions (user_id, version, updated_at) values (?, ?, ?)
+            on duplicate key update version = greatest(version, values(version)), updated_at = values(updated_at)""";
+
+    // Rows of deleted users only matter while tokens issued to them can still be unexpired
+    static final String PURGE_SQL = """
+            delete from user_token_versions
+            where updated_at < ? and not exists (select 1 from users u where u.id = user_token_versions.user_id)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long maxTokenLifetimeMillis;
+
+    public JdbcTokenVersionStore(DataSource dataSource, @Value("${JWT_EXPIRATION}") long maxTokenLifetimeMillis) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.maxTokenLifetimeMillis = maxTokenLifetimeMillis;
+    }
+
+    @PostConstruct
+    public void createTable() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+    }
+
+    @Override
+    public Map<Long, Integer> loadAll() {
+        jdbcTemplate.update(PURGE_SQL, Timestamp.from(Instant.now().minusMillis(maxTokenLifetimeMillis)));
+        Map<Long, Integer> versions = new HashMap<>();
+        jdbcTemplate.query("select user_id, version from user_token_versions",
+                rs -> { versions.put(rs.getLong("user_id"), rs.getInt("version")); });
+        return versions;
+    }
+
+    @Override
+    public void save(long userId, int version) {
+        jdbcTemplate.update(UPSERT_SQL, userId, version, Timestamp.from(Instant.now()));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.springcrud.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * {@link TokenVersionStore} for the reactive profile. Versions are loaded once at startup (off the event loop);
+ * saves run in the background, since they are only needed by nodes that start later.
+ */
+@Repository
+@Slf4j
+@Profile("reactive")
+public class R2dbcTokenVersionStore implements TokenVersionStore {
+
+    private static final String UPSERT_SQL = """
+            insert into user_token_versions (user_id, version, updated_at) values (:userId, :version, :updatedAt)
+            on duplicate key update version = greatest(version, values(version)), updated_at = values(updated_at)""";
+
+    private static final String PURGE_SQL = """
+            delete from user_token_versions
+            where updated_at < :purgeBefore and not exists (select 1 from users u where u.id = user_token_versions.user_id)""";
+
+    private final DatabaseClient databaseClient;
+    private final long maxTokenLifetimeMillis;
+
+    public R2dbcTokenVersionStore(DatabaseClient databaseClient, @Value("${JWT_EXPIRATION}") long maxTokenLifetimeMillis) {
+        this.databaseClient = databaseClient;
+        this.maxTokenLifetimeMillis = maxTokenLifetimeMillis;
+    }
+
+    @Override
+    public Map<Long, Integer> loadAll() {
+        LocalDateTime purgeBefore = LocalDateTime.now().minus(Duration.ofMillis(maxTokenLifetimeMillis));
+        return databaseClient.sql(JdbcTokenVersionStore.CREATE_TABLE_SQL).then()
+                .then(databaseClient.sql(PURGE_SQL)
+                        .bind("purgeBefore", purgeBefore)
+                        .then())
+                .thenMany(databaseClient.sql("select user_id, version from user_token_versions")
+                        .map(row -> Map.entry(row.get("user_id", Long.class), row.get("version", Integer.class)))
+                        .all())
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .block();
+    }
+
+    @Override
+    public void save(long userId, int version) {
+        databaseClient.sql(UPSERT_SQL)
+                .bind("userId", userId)
+                .bind("version", version)
+                .bind("updatedAt", LocalDateTime.now())
+                .then()
+                .subscribe(null, e -> log.warn("Could not store token version {} of user {}: {}", version, userId,
+                        e.getMessage()));
+    }
+}
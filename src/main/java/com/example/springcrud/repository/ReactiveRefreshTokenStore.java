@@ -0,0 +1,50 @@
+package com.example.springcrud.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking counterpart of {@link RefreshTokenStore} for the reactive profile, on the same table.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveRefreshTokenStore {
+
+    private final DatabaseClient databaseClient;
+    private final AtomicLong inserts = new AtomicLong();
+
+    public ReactiveRefreshTokenStore(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @PostConstruct
+    public void createTable() {
+        databaseClient.sql(RefreshTokenStore.CREATE_TABLE_SQL).then().block();
+    }
+
+    /**
+     * @return true if this call marked the token, false if it had been marked before (on any node).
+     */
+    public Mono<Boolean> markUsed(String tokenId, Instant expiresAt) {
+        Mono<Void> purge = inserts.incrementAndGet() % RefreshTokenStore.PURGE_EVERY_INSERTS == 0
+                ? databaseClient.sql("delete from used_refresh_tokens where expires_at < :now")
+                        .bind("now", LocalDateTime.now())
+                        .then()
+                : Mono.empty();
+        return purge.then(databaseClient.sql("insert into used_refresh_tokens (token_id, expires_at) values (:tokenId, :expiresAt)")
+                        .bind("tokenId", tokenId)
+                        .bind("expiresAt", LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))
+                        .then()
+                        .thenReturn(true))
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.just(false));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.springcrud.repository;
+
+import com.example.springcrud.entity.Role;
+import com.example.springcrud.entity.UserRow;
+import com.example.springcrud.model.projection.UserProfileRow;
+import com.example.springcrud.model.projection.UserRoleRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Non-blocking counterpart of {@link UserRepository} for the reactive profile.
+ * Queries mirror the JPA ones, including the one-row-per-role profile shape.
+ */
+@Repository
+public interface ReactiveUserRepository extends R2dbcRepository<UserRow, Long> {
+
+    Mono<UserRow> findByUsername(String username);
+
+    Mono<Boolean> existsByUsername(String username);
+
+    Mono<Boolean> existsByEmail(String email);
+
+    // --- Read-only projections ---
+
+    @Query("select id, fullname, username, email from users where id > :afterId order by id limit :limit")
+    Flux<UserRow> findPageAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Query("select user_id, role from user_roles where user_id in (:userIds)")
+    Flux<UserRoleRow> findRolesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query("select role from user_roles where user_id = :userId")
+    Flux<Role> findRolesByUserId(@Param("userId") Long userId);
+
+    @Query("""
+            select u.id, u.fullname, u.username, u.email, r.role
+            from users u left join user_roles r on r.user_id = u.id
+            where u.id = :id""")
+    Flux<UserProfileRow> findProfileRowsById(@Param("id") Long id);
+
+    @Query("""
+            select u.id, u.fullname, u.username, u.email, r.role
+            from users u left join user_roles r on r.user_id = u.id
+            where u.username = :username""")
+    Flux<UserProfileRow> findProfileRowsByUsername(@Param("username") String username);
+
+    // Rows come back grouped by user, ready to be folded while streaming
+    @Query("""
+            select u.id, u.fullname, u.username, u.email, r.role
+            from users u left join user_roles r on r.user_id = u.id
+            where u.id > :afterId
+            order by u.id""")
+    Flux<UserProfileRow> streamProfileRowsAfter(@Param("afterId") long afterId);
+
+    // --- Writes ---
+
+    @Modifying
+    @Query("insert into user_roles (user_id, role) values (:userId, :role)")
+    Mono<Integer> addRole(@Param("userId") Long userId, @Param("role") String role);
+
+    @Modifying
+    @Query("delete from user_roles where user_id = :userId")
+    Mono<Integer> deleteRoles(@Param("userId") Long userId);
+
+    // Compare-and-set on the old hash, like UserRepository.upgradePassword
+    @Modifying
+    @Query("update users set password = :newPassword where username = :username and password = :oldPassword")
+    Mono<Integer> upgradePassword(@Param("username") String username, @Param("oldPassword") String oldPassword,
+                                  @Param("newPassword") String newPassword);
+}
@@ -0,0 +1,61 @@
+package com.example.springcrud.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refresh tokens that have been exchanged or logged out, by {@code jti}, shared by every node through the
+ * application database. The primary key makes marking a token atomic: of several nodes exchanging the same
+ * refresh token at once, exactly one insert succeeds. Rows are kept until the token itself expires.
+ */
+@Repository
+@Profile("!reactive")
+public class RefreshTokenStore {
+
+    static final String CREATE_TABLE_SQL = """
+            create table if not exists used_refresh_tokens (
+                token_id varchar(64) primary key,
+                expires_at timestamp not null
+            )""";
+
+    static final String PURGE_SQL = "delete from used_refresh_tokens where expires_at < ?";
+
+    // Expired rows are deleted by every this many inserts, on the inserting thread
+    static final long PURGE_EVERY_INSERTS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong inserts = new AtomicLong();
+
+    public RefreshTokenStore(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @PostConstruct
+    public void createTable() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+    }
+
+    /**
+     * @return true if this call marked the token, false if it had been marked before (on any node).
+     */
+    public boolean markUsed(String tokenId, Instant expiresAt) {
+        if (inserts.incrementAndGet() % PURGE_EVERY_INSERTS == 0) {
+            jdbcTemplate.update(PURGE_SQL, Timestamp.from(Instant.now()));
+        }
+        try {
+            jdbcTemplate.update("insert into used_refresh_tokens (token_id, expires_at) values (?, ?)",
+                    tokenId, Timestamp.from(expiresAt));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.springcrud.repository;
+
+import java.util.Map;
+
+/**
+ * Durable copy of the per-user token versions, so a restarted node does not forget which tokens were revoked.
+ * Kept in its own table rather than on the user row, because a deleted user's tokens must stay revoked too.
+ */
+public interface TokenVersionStore {
+
+    /**
+     * @return Every user whose tokens have been invalidated at least once, with their current version.
+     */
+    Map<Long, Integer> loadAll();
+
+    /**
+     * Records the user's new version; never lowers a stored one.
+     */
+    void save(long userId, int version);
+}
@@ -0,0 +1,102 @@
+package com.example.springcrud.repository;
+
+import com.example.springcrud.entity.Role;
+import com.example.springcrud.util.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-row inserts for bulk user imports, bypassing the persistence context.
+ * Ids come from the same {@link SnowflakeIdGenerator} as JPA-created users, so the role rows can be
+ * written without reading the users back; on MySQL {@code rewriteBatchedStatements=true} turns each
+ * batch into a single multi-row INSERT.
+ */
+@Repository
+@Profile("!reactive")
+public class UserImportRepository {
+
+    private static final String INSERT_USER_SQL =
+            "insert into users (id, fullname, username, email, password) values (?, ?, ?, ?, ?)";
+    private static final String INSERT_ROLE_SQL =
+            "insert into user_roles (user_id, role) values (?, ?)";
+
+    /**
+     * A validated, de-duplicated user whose password is already hashed.
+     */
+    public record NewUser(String fullname, String username, String email, String password) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SnowflakeIdGenerator idGenerator;
+    private final int batchSize;
+
+    public UserImportRepository(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                SnowflakeIdGenerator idGenerator,
+                                @Value("${app.users.import.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.idGenerator = idGenerator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Inserts all users with the USER role in one transaction. If a unique constraint fires because
+     * someone registered the same username or email in the meantime, the users are retried one by one.
+     *
+     * @return Id of every user that was inserted, by username; users missing from it hit a unique constraint.
+     */
+    public Map<String, Long> insertAll(List<NewUser> users) {
+        if (users.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Long> created = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> created.putAll(insertBatch(users)));
+        } catch (DataIntegrityViolationException e) {
+            created.clear();
+            for (NewUser user : users) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> created.putAll(insertBatch(List.of(user))));
+                } catch (DataIntegrityViolationException conflict) {
+                    // Left out of the result
+                }
+            }
+        }
+        return created;
+    }
+
+    private Map<String, Long> insertBatch(List<NewUser> users) {
+        // Fresh ids on every attempt, so nothing depends on what a rolled-back batch was given
+        List<Map.Entry<Long, NewUser>> rows = users.stream()
+                .map(user -> Map.entry(idGenerator.nextId(), user))
+                .toList();
+
+        jdbcTemplate.batchUpdate(INSERT_USER_SQL, rows, batchSize, (ps, row) -> {
+            ps.setLong(1, row.getKey());
+            ps.setString(2, row.getValue().fullname());
+            ps.setString(3, row.getValue().username());
+            ps.setString(4, row.getValue().email());
+            ps.setString(5, row.getValue().password());
+        });
+
+        jdbcTemplate.batchUpdate(INSERT_ROLE_SQL, rows, batchSize, (ps, row) -> {
+            ps.setLong(1, row.getKey());
+            ps.setString(2, Role.USER.name());
+        });
+
+        Map<String, Long> ids = new HashMap<>();
+        rows.forEach(row -> ids.put(row.getValue().username(), row.getKey()));
+        return ids;
+    }
+}
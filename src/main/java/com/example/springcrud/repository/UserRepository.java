@@ -1,22 +1,87 @@
 package com.example.springcrud.repository;
 
 import com.example.springcrud.entity.User;
+import com.example.springcrud.model.projection.UserIdentity;
+import com.example.springcrud.model.projection.UserProfileRow;
+import com.example.springcrud.model.projection.UserRoleRow;
+import com.example.springcrud.model.projection.UserSummary;
+import com.example.springcrud.tracing.Traced;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
+@Traced
 public interface UserRepository extends JpaRepository<User, Long> {
 
-    @Cacheable(value = "usersByUsername", key = "#username")
+    // Entity reads that need roles fetch them in the same statement
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    List<User> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findById(Long id);
+
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByUsername(String username);
 
     void deleteByUsername(String username);
 
+    // --- Read-only projections: public columns only, no entity hydration ---
+
+    // Keyset page: seeks straight to the cursor through the primary key instead of skipping OFFSET rows
+    List<UserSummary> findSummariesByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // Roles of a whole page in one query
+    @Query("select new com.example.springcrud.model.projection.UserRoleRow(u.id, r) "
+            + "from User u join u.roles r where u.id in :userIds")
+    List<UserRoleRow> findRolesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Profile and roles in a single query
+    @Query("select new com.example.springcrud.model.projection.UserProfileRow(u.id, u.fullname, u.username, u.email, r) "
+            + "from User u left join u.roles r where u.id = :id")
+    List<UserProfileRow> findProfileRowsById(@Param("id") Long id);
+
+    @Query("select new com.example.springcrud.model.projection.UserProfileRow(u.id, u.fullname, u.username, u.email, r) "
+            + "from User u left join u.roles r where u.username = :username")
+    List<UserProfileRow> findProfileRowsByUsername(@Param("username") String username);
+
+    @Query("select new com.example.springcrud.model.projection.UserProfileRow(u.id, u.fullname, u.username, u.email, r) "
+            + "from User u left join u.roles r where u.email = :email")
+    List<UserProfileRow> findProfileRowsByEmail(@Param("email") String email);
+
     Optional<Object> findByEmail( String email);
+
+    // Registration uniqueness check: both keys in one round trip
+    @Query("select new com.example.springcrud.model.projection.UserIdentity(u.username, u.email) "
+            + "from User u where u.username = :username or u.email = :email")
+    List<UserIdentity> findIdentitiesByUsernameOrEmail(@Param("username") String username, @Param("email") String email);
+
+    // Set-based existence checks for bulk imports: one query per batch instead of two per user
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Only replaces the hash if it is still the one that was verified, so a concurrent password change wins
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :newPassword where u.username = :username and u.password = :oldPassword")
+    int upgradePassword(@Param("username") String username,
+                        @Param("oldPassword") String oldPassword,
+                        @Param("newPassword") String newPassword);
 }
@@ -0,0 +1,110 @@
+package com.example.springcrud.repository;
+
+import com.example.springcrud.model.response.UserResponse;
+import com.example.springcrud.tracing.Traced;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Forward-only reads over the users table for exports and streamed listings.
+ * Rows are handed to the caller one at a time while the JDBC cursor advances, so memory use
+ * does not depend on the size of the table. On MySQL this needs {@code useCursorFetch=true}
+ * on the JDBC URL, otherwise the driver buffers the whole result set regardless of the fetch size.
+ */
+@Repository
+@Traced
+@Profile("!reactive")
+public class UserStreamRepository {
+
+    // Bounded to a number of users, so long reads can release the connection between chunks
+    private static final String STREAM_USER_CHUNK_SQL = """
+            select u.id, u.fullname, u.username, u.email, r.role
+            from (select id, fullname, username, email from users where id > ? order by id limit ?) u
+            left join user_roles r on r.user_id = u.id
+            order by u.id""";
+
+    private static final String STREAM_IDENTITIES_SQL = "select username, email from users";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserStreamRepository(DataSource dataSource, @Value("${app.users.stream-fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Streams at most {@code maxUsers} users with an id greater than {@code afterId}, in id order, roles included.
+     *
+     * @return The id of the last user streamed, or {@code afterId} if there was none.
+     */
+    public long streamUserChunkAfter(long afterId, int maxUsers, Consumer<UserResponse> consumer) {
+        long[] lastId = {afterId};
+        UserRowGrouper grouper = new UserRowGrouper(user -> {
+            lastId[0] = user.getId();
+            consumer.accept(user);
+        });
+        jdbcTemplate.query(STREAM_USER_CHUNK_SQL, grouper, afterId, maxUsers);
+        grouper.finish();
+        return lastId[0];
+    }
+
+    public long countUsers() {
+        Long count = jdbcTemplate.queryForObject("select count(*) from users", Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Streams the username and email of every user, in no particular order.
+     */
+    public void streamUsernamesAndEmails(BiConsumer<String, String> consumer) {
+        jdbcTemplate.query(STREAM_IDENTITIES_SQL, (RowCallbackHandler) rs -> consumer.accept(rs.getString(1), rs.getString(2)));
+    }
+
+    /**
+     * The join yields one row per role; consecutive rows with the same id are folded into one user.
+     */
+    private static final class UserRowGrouper implements RowCallbackHandler {
+
+        private final Consumer<UserResponse> consumer;
+        private UserResponse current;
+
+        private UserRowGrouper(Consumer<UserResponse> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong(1);
+            if (current == null || current.getId() != id) {
+                finish();
+                current = new UserResponse();
+                current.setId(id);
+                current.setFullName(rs.getString(2));
+                current.setUsername(rs.getString(3));
+                current.setEmail(rs.getString(4));
+                current.setRoles(new LinkedHashSet<>());
+            }
+            String role = rs.getString(5);
+            if (role != null) {
+                current.getRoles().add(role);
+            }
+        }
+
+        void finish() {
+            if (current != null) {
+                consumer.accept(current);
+                current = null;
+            }
+        }
+    }
+}
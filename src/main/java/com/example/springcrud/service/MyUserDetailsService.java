@@ -1,21 +1,28 @@
 package com.example.springcrud.service;
 
+import com.example.springcrud.cache.UserCache;
 import com.example.springcrud.config.UserPrincipal;
 import com.example.springcrud.exception.UserOperationException;
 import com.example.springcrud.repository.UserRepository;
+import com.example.springcrud.tracing.Traced;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.context.annotation.Profile;
 
 
 @Service
+@Traced
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class MyUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    private final UserCache userCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         // Find the user by username
@@ -27,4 +34,14 @@ public class MyUserDetailsService implements UserDetailsService {
 
     }
 
+    /**
+     * Principal for a request already authenticated by a JWT, served from the user cache.
+     * Unlike {@link #loadUserByUsername} it carries no password, so it must not be used for credential checks.
+     */
+    public UserPrincipal loadPrincipalByUsername(String username) throws UsernameNotFoundException {
+        return userCache.findByUsername(username)
+                .map(UserPrincipal::fromCachedUser)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+    }
+
 }
@@ -0,0 +1,172 @@
+package com.example.springcrud.service;
+
+import com.example.springcrud.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs password encode/match work on a dedicated, fixed-size CPU pool instead of the Tomcat request threads.
+ * The pool has a bounded queue: once it is full new work is rejected straight away with a
+ * {@link ServiceBusyException} (503), so a login storm cannot starve the rest of the API.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${app.password.pool-size:0}") int poolSize,
+                                  @Value("${app.password.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+
+        // Hashing is pure CPU work, so by default one thread per core is all the pool needs
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("password.hash.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks currently running")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("password.hash.latency")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchTimer = Timer.builder("password.hash.latency")
+                .tag("operation", "match")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("password.hash.wait")
+                .description("Time hashing tasks spent queued before a pool thread picked them up")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hash.rejected")
+                .description("Hashing requests refused because the pool was saturated")
+                .register(meterRegistry);
+
+        log.info("Password hashing pool started with {} threads and a queue of {}", threads, queueCapacity);
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> timedEncode(rawPassword));
+    }
+
+    /**
+     * Encodes a batch of passwords in parallel for bulk work such as imports.
+     * At most one task per pool thread is in flight at a time, and when interactive traffic has filled
+     * the queue the caller hashes the password itself, so a large batch slows down instead of failing
+     * or crowding out logins.
+     *
+     * @return The encoded passwords, in the order of the input.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        Semaphore inFlight = new Semaphore(executor.getMaximumPoolSize());
+        List<CompletableFuture<String>> futures = new ArrayList<>(rawPasswords.size());
+        for (String rawPassword : rawPasswords) {
+            inFlight.acquireUninterruptibly();
+            CompletableFuture<String> future;
+            try {
+                future = CompletableFuture.supplyAsync(timedWait(() -> timedEncode(rawPassword)), executor);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.completedFuture(timedEncode(rawPassword));
+            }
+            futures.add(future.whenComplete((encoded, ex) -> inFlight.release()));
+        }
+        return futures.stream().map(PasswordHashingService::await).toList();
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> {
+            long start = System.nanoTime();
+            boolean matched = passwordEncoder.matches(rawPassword, encodedPassword);
+            matchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return matched;
+        });
+    }
+
+    /**
+     * @return true if the hash was produced by an older algorithm or a lower cost than the current policy.
+     */
+    public boolean needsUpgrade(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Blocking variant for callers that already run inside a transaction and need the result in place.
+     * The work still goes through the bounded pool, so it is subject to the same backpressure.
+     */
+    public String encodeAndWait(String rawPassword) {
+        return await(encode(rawPassword));
+    }
+
+    public boolean matchesAndWait(String rawPassword, String encodedPassword) {
+        return await(matches(rawPassword, encodedPassword));
+    }
+
+    private String timedEncode(String rawPassword) {
+        long start = System.nanoTime();
+        String encoded = passwordEncoder.encode(rawPassword);
+        encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return encoded;
+    }
+
+    private <T> Supplier<T> timedWait(Supplier<T> task) {
+        long enqueued = System.nanoTime();
+        return () -> {
+            waitTimer.record(System.nanoTime() - enqueued, TimeUnit.NANOSECONDS);
+            return task.get();
+        };
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(timedWait(task), executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException("Too many concurrent password operations, please retry shortly.");
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.springcrud.service;
+
+import com.example.springcrud.cache.CachedUser;
+import com.example.springcrud.cache.ReactiveUserCache;
+import com.example.springcrud.cache.UserInvalidationBus;
+import com.example.springcrud.cache.UserInvalidationEvent;
+import com.example.springcrud.config.UserPrincipal;
+import com.example.springcrud.entity.Role;
+import com.example.springcrud.entity.UserRow;
+import com.example.springcrud.exception.*;
+import com.example.springcrud.model.projection.UserProfileRow;
+import com.example.springcrud.model.projection.UserRoleRow;
+import com.example.springcrud.model.request.DeleteAccountRequest;
+import com.example.springcrud.model.request.UpdateUserRequest;
+import com.example.springcrud.model.request.UserRequest;
+import com.example.springcrud.model.response.UserPageResponse;
+import com.example.springcrud.model.response.UserResponse;
+import com.example.springcrud.repository.ReactiveRefreshTokenStore;
+import com.example.springcrud.repository.ReactiveUserRepository;
+import com.example.springcrud.util.JwtUtil;
+import com.example.springcrud.util.TokenPair;
+import com.example.springcrud.util.UserConstraints;
+import com.example.springcrud.util.VerifiedToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.*;
+
+/**
+ * Non-blocking implementation of the user API for the reactive profile.
+ * Database access goes through R2DBC and never blocks an event-loop thread; password hashing still runs
+ * on the bounded {@link PasswordHashingService} pool and is bridged back in with {@code Mono.fromFuture}.
+ * Invalidations are published once the write transaction has completed, exactly like the servlet version.
+ */
+@Service
+@Slf4j
+@Profile("reactive")
+public class ReactiveUserService {
+
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveUserCache userCache;
+    private final UserInvalidationBus invalidationBus;
+    private final PasswordHashingService passwordHashing;
+    private final JwtUtil jwtUtil;
+    private final TokenVersionRegistry tokenVersions;
+    private final TokenRevocationIndex revocations;
+    private final ReactiveRefreshTokenStore refreshTokenStore;
+    private final TransactionalOperator transactionalOperator;
+    private final int maxPageSize;
+
+    public ReactiveUserService(ReactiveUserRepository userRepository, ReactiveUserCache userCache,
+                               UserInvalidationBus invalidationBus, PasswordHashingService passwordHashing,
+                               JwtUtil jwtUtil, TokenVersionRegistry tokenVersions, TokenRevocationIndex revocations,
+                               ReactiveRefreshTokenStore refreshTokenStore, TransactionalOperator transactionalOperator,
+                               @Value("${app.users.max-page-size:500}") int maxPageSize) {
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.invalidationBus = invalidationBus;
+        this.passwordHashing = passwordHashing;
+        this.jwtUtil = jwtUtil;
+        this.tokenVersions = tokenVersions;
+        this.revocations = revocations;
+        this.refreshTokenStore = refreshTokenStore;
+        this.transactionalOperator = transactionalOperator;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public Mono<Void> registerUser(UserRequest registerRequest) {
+        Mono<Void> insert = Mono.fromFuture(() -> passwordHashing.encode(registerRequest.getPassword()))
+                .flatMap(encodedPassword -> userRepository.save(UserRow.builder()
+                        .fullname(registerRequest.getFullname())
+                        .username(registerRequest.getUsername())
+                        .email(registerRequest.getEmail())
+                        .password(encodedPassword)
+                        .build()))
+                .flatMap(saved -> userRepository.addRole(saved.getId(), Role.USER.name()))
+                .then()
+                // The exists checks below can race with a concurrent registration; the unique indexes cannot
+                .onErrorMap(DataIntegrityViolationException.class, e -> duplicateUser(e, registerRequest));
+
+        return userRepository.existsByUsername(registerRequest.getUsername())
+                .flatMap(taken -> taken
+                        ? Mono.<Boolean>error(new UserIsPresentException("Username '" + registerRequest.getUsername() + "' is already taken."))
+                        : userRepository.existsByEmail(registerRequest.getEmail()))
+                .flatMap(taken -> taken
+                        ? Mono.<Void>error(new UserIsPresentException("Email '" + registerRequest.getEmail() + "' is already registered."))
+                        : transactionalOperator.transactional(insert));
+    }
+
+    private static UserIsPresentException duplicateUser(DataIntegrityViolationException e, UserRequest registerRequest) {
+        return UserConstraints.violatedField(e)
+                .map(field -> switch (field) {
+                    case USERNAME -> new UserIsPresentException("Username '" + registerRequest.getUsername() + "' is already taken.");
+                    case EMAIL -> new UserIsPresentException("Email '" + registerRequest.getEmail() + "' is already registered.");
+                    case FULLNAME -> new UserIsPresentException("Full name '" + registerRequest.getFullname() + "' is already registered.");
+                })
+                .orElseGet(() -> new UserIsPresentException("A user with these details already exists."));
+    }
+
+    public Mono<TokenPair> loginAndGetToken(String username, String rawPassword) {
+        return userRepository.findByUsername(username)
+                .switchIfEmpty(Mono.error(() -> new InvalidCredentialsException("Invalid username or password.")))
+                .flatMap(user -> Mono.fromFuture(() -> passwordHashing.matches(rawPassword, user.getPassword()))
+                        .flatMap(matched -> {
+                            if (!matched) {
+                                return Mono.<TokenPair>error(new InvalidCredentialsException("Invalid username or password."));
+                            }
+                            if (passwordHashing.needsUpgrade(user.getPassword())) {
+                                upgradePasswordHash(user, rawPassword);
+                            }
+                            return userRepository.findRolesByUserId(user.getId())
+                                    .collect(() -> EnumSet.noneOf(Role.class), Set::add)
+                                    .map(roles -> jwtUtil.issueTokens(user.getId(), user.getUsername(), user.getEmail(),
+                                            roles, tokenVersions.currentVersion(user.getId())));
+                        }));
+    }
+
+    /**
+     * Single-use refresh token exchange, see {@code UserService#refreshTokens}.
+     */
+    public Mono<TokenPair> refreshTokens(String refreshToken) {
+        Optional<VerifiedToken> verified = jwtUtil.verify(refreshToken)
+                .filter(VerifiedToken::isRefreshToken)
+                .filter(token -> token.userId() != null);
+        if (verified.isEmpty()) {
+            return Mono.error(new InvalidCredentialsException("Invalid refresh token."));
+        }
+
+        Long userId = verified.get().userId();
+        if (!tokenVersions.isCurrent(userId, verified.get().tokenVersion())) {
+            return Mono.error(new InvalidCredentialsException("Refresh token has been revoked."));
+        }
+        // The store is the authority; the local index is only updated once it has confirmed first use
+        Mono<Boolean> firstUse = revocations.isRevoked(verified.get())
+                ? Mono.just(false)
+                : refreshTokenStore.markUsed(verified.get().tokenId(), verified.get().expiresAt())
+                        .doOnNext(first -> {
+                            if (first) {
+                                revocations.revoke(verified.get());
+                            }
+                        });
+
+        return firstUse.flatMap(first -> {
+                    if (!first) {
+                        log.warn("Refresh token reuse for user id {}; revoking all of their tokens", userId);
+                        int tokenVersion = tokenVersions.bump(userId);
+                        invalidationBus.publishAfterCommit(UserInvalidationEvent.of(userId, verified.get().subject(), tokenVersion));
+                        return Mono.<CachedUser>error(new InvalidCredentialsException("Refresh token has been revoked."));
+                    }
+                    return userCache.findById(userId);
+                })
+                .switchIfEmpty(Mono.error(() -> new InvalidCredentialsException("Refresh token has been revoked.")))
+                .map(user -> jwtUtil.issueTokens(user.id(), user.username(), user.email(), user.roles(),
+                        tokenVersions.currentVersion(userId)));
+    }
+
+    /**
+     * Revokes the given access token and, if it belongs to the same user, the refresh token. Only the refresh token
+     * is written to the database, in the background, so other nodes refuse it too.
+     */
+    public void logout(String accessToken, String refreshToken) {
+        Optional<VerifiedToken> access = jwtUtil.verify(accessToken);
+        access.ifPresent(revocations::revoke);
+
+        if (refreshToken != null) {
+            jwtUtil.verify(refreshToken)
+                    .filter(VerifiedToken::isRefreshToken)
+                    .filter(token -> access.isPresent() && Objects.equals(token.userId(), access.get().userId()))
+                    .filter(revocations::revoke)
+                    .ifPresent(token -> refreshTokenStore.markUsed(token.tokenId(), token.expiresAt())
+                            .subscribe(null, e -> log.warn("Could not store logged out refresh token of user {}: {}",
+                                    token.userId(), e.getMessage())));
+        }
+    }
+
+    /**
+     * Fire-and-forget rehash, see {@code UserService#upgradePasswordHash}.
+     */
+    private void upgradePasswordHash(UserRow user, String rawPassword) {
+        Mono.fromFuture(() -> passwordHashing.encode(rawPassword))
+                .flatMap(newHash -> userRepository.upgradePassword(user.getUsername(), user.getPassword(), newHash))
+                .subscribe(
+                        updated -> {
+                            if (updated == 1) {
+                                log.info("Upgraded password hash for user id {}", user.getId());
+                            }
+                        },
+                        ex -> log.debug("Password hash upgrade skipped for user id {}: {}", user.getId(), ex.getMessage()));
+    }
+
+    public Mono<UserPageResponse> getUsersPage(Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        long cursor = afterId == null ? 0L : afterId;
+
+        return userRepository.findPageAfter(cursor, pageSize + 1)
+                .collectList()
+                .flatMap(users -> {
+                    if (users.isEmpty() && afterId == null) {
+                        return Mono.<UserPageResponse>error(new UserNotFoundException("No users found in the system."));
+                    }
+
+                    boolean hasMore = users.size() > pageSize;
+                    List<UserRow> page = hasMore ? users.subList(0, pageSize) : users;
+                    List<Long> ids = page.stream().map(UserRow::getId).toList();
+
+                    Mono<Map<Long, Set<String>>> roles = ids.isEmpty()
+                            ? Mono.just(Map.of())
+                            : userRepository.findRolesByUserIds(ids).<Map<Long, Set<String>>>collect(HashMap::new, ReactiveUserService::addRole);
+
+                    return roles.map(rolesByUser -> {
+                        List<UserResponse> items = page.stream()
+                                .map(user -> toResponse(user, rolesByUser.getOrDefault(user.getId(), Set.of())))
+                                .toList();
+                        return UserPageResponse.builder()
+                                .items(items)
+                                .nextCursor(hasMore ? items.get(items.size() - 1).getId() : null)
+                                .hasMore(hasMore)
+                                .build();
+                    });
+                });
+    }
+
+    /**
+     * Every user after {@code afterId}, one element per user, streamed with backpressure straight from the driver.
+     */
+    public Flux<UserResponse> streamUsers(long afterId) {
+        return userRepository.streamProfileRowsAfter(afterId)
+                .bufferUntilChanged(UserProfileRow::id)
+                .map(rows -> CachedUser.fromRows(rows).orElseThrow().toResponse());
+    }
+
+    public Mono<UserResponse> getUserProfileById(Long id) {
+        return userCache.findById(id)
+                .map(CachedUser::toResponse)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException("User not found with id: " + id)));
+    }
+
+    public Mono<Void> updateUserByOwnerOrAdmin(UpdateUserRequest request, UserPrincipal loggedInUser) {
+        if (request == null) {
+            return Mono.error(new InvalidInputException("Invalid input"));
+        }
+
+        boolean isOwner = request.getUsername().equals(loggedInUser.getUsername());
+        boolean isAdmin = loggedInUser.getAuthorities().stream()
+                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
+
+        if (!isOwner && !isAdmin) {
+            return Mono.error(new AccessDeniedException("You are not authorized to update this user."));
+        }
+
+        Mono<String> newHash = request.getPassword() != null && !request.getPassword().isBlank()
+                ? Mono.fromFuture(() -> passwordHashing.encode(request.getPassword()))
+                : Mono.just("");
+
+        Mono<Tuple2<UserInvalidationEvent, Boolean>> update = userRepository.findByUsername(request.getUsername())
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException("User not found with username: " + request.getUsername())))
+                .zipWith(newHash)
+                .flatMap(userAndHash -> {
+                    UserRow user = userAndHash.getT1();
+                    String previousEmail = user.getEmail();
+                    boolean passwordChanged = !userAndHash.getT2().isEmpty();
+                    user.setFullname(request.getFullname());
+                    user.setEmail(request.getEmail());
+                    if (passwordChanged) {
+                        user.setPassword(userAndHash.getT2());
+                    }
+                    // Only a new email or password ends the user's sessions, see UserService#updateUserByOwnerOrAdmin
+                    boolean revokeTokens = passwordChanged || !previousEmail.equalsIgnoreCase(request.getEmail());
+                    return userRepository.save(user)
+                            .map(saved -> Tuples.of(UserInvalidationEvent.of(saved.getId(), saved.getUsername(), 0,
+                                    previousEmail, saved.getEmail()), revokeTokens));
+                });
+
+        return transactionalOperator.transactional(update)
+                .doOnNext(committed -> publishAfterCommit(committed.getT1(), committed.getT2()))
+                .then();
+    }
+
+    public Mono<Void> deleteUser(DeleteAccountRequest request, UserPrincipal loggedInUser) {
+        // Only allow self-deletion (extra protection)
+        if (!request.getUsername().equals(loggedInUser.getUsername())) {
+            return Mono.error(new AccessDeniedException("You can only delete your own account."));
+        }
+
+        Mono<UserInvalidationEvent> delete = userRepository.findByUsername(request.getUsername())
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException("User not found with username: " + request.getUsername())))
+                .flatMap(user -> Mono.fromFuture(() -> passwordHashing.matches(request.getPassword(), user.getPassword()))
+                        .flatMap(matched -> {
+                            if (!matched) {
+                                return Mono.<UserInvalidationEvent>error(new InvalidInputException("Incorrect password for account deletion."));
+                            }
+                            if (!request.isConfirmDeletion()) {
+                                return Mono.<UserInvalidationEvent>error(new UserOperationException("Please confirm account deletion by setting 'confirmDeletion' to true."));
+                            }
+                            return userRepository.deleteRoles(user.getId())
+                                    .then(userRepository.deleteById(user.getId()))
+                                    .thenReturn(UserInvalidationEvent.of(user.getId(), user.getUsername(), 0, user.getEmail()));
+                        }));
+
+        return transactionalOperator.transactional(delete)
+                .doOnNext(committed -> publishAfterCommit(committed, true))
+                .then();
+    }
+
+    // Runs once the transactional Mono has completed, i.e. after commit; bumping here keeps the version
+    // in step with what was actually written
+    private void publishAfterCommit(UserInvalidationEvent committed, boolean revokeTokens) {
+        int tokenVersion = revokeTokens ? tokenVersions.bump(committed.userId()) : 0;
+        invalidationBus.publishAfterCommit(new UserInvalidationEvent(committed.userId(), committed.username(),
+                committed.emails(), tokenVersion, null));
+    }
+
+    private static void addRole(Map<Long, Set<String>> rolesByUser, UserRoleRow row) {
+        rolesByUser.computeIfAbsent(row.userId(), id -> new LinkedHashSet<>()).add(row.role().name());
+    }
+
+    private static UserResponse toResponse(UserRow user, Set<String> roles) {
+        UserResponse response = new UserResponse();
+        response.setId(user.getId());
+        response.setFullName(user.getFullname());
+        response.setUsername(user.getUsername());
+        response.setEmail(user.getEmail());
+        response.setRoles(roles);
+        return response;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.springcrud.service;
+
+import com.example.springcrud.util.VerifiedToken;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory set of individually revoked tokens (logged out, or refresh tokens already exchanged), keyed by {@code jti}.
+ * Entries are grouped into buckets by the token's own expiry, because a revoked token only has to be remembered
+ * until it would have expired anyway: whole buckets are dropped once their time has passed, and a lookup only
+ * ever touches the one bucket the token's {@code exp} falls into.
+ * Revoking every token of a user at once is the job of {@link TokenVersionRegistry}. This index is node-local;
+ * refresh tokens are additionally recorded in the {@code RefreshTokenStore}, so no other node exchanges them again.
+ */
+@Component
+public class TokenRevocationIndex {
+
+    private final long bucketMillis;
+
+    // Bucket number (expiry rounded up to the bucket width) -> revoked token ids expiring in it
+    private final ConcurrentHashMap<Long, Set<String>> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+    private volatile long purgedBefore;
+
+    public TokenRevocationIndex(MeterRegistry meterRegistry,
+                                @Value("${app.jwt.revocation.bucket-width:1m}") Duration bucketWidth) {
+        this.bucketMillis = Math.max(1, bucketWidth.toMillis());
+        Gauge.builder("jwt.revoked.tokens", size, AtomicLong::get)
+                .description("Revoked tokens remembered until their expiry")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revokes the token until it expires.
+     *
+     * @return true if this call revoked it, false if it was already revoked (or has no id to revoke by).
+     * Exactly one of several concurrent callers gets true, which is what makes refresh tokens single-use.
+     */
+    public boolean revoke(VerifiedToken token) {
+        String tokenId = token.tokenId();
+        if (tokenId == null || token.expiresAt() == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        purgeExpired(now);
+
+        long bucket = bucketOf(token.expiresAt());
+        if (bucket * bucketMillis <= now) {
+            return false; // Expired already; nothing will accept it anyway
+        }
+        boolean added = buckets.computeIfAbsent(bucket, b -> ConcurrentHashMap.newKeySet()).add(tokenId);
+        if (added) {
+            size.incrementAndGet();
+        }
+        return added;
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        String tokenId = token.tokenId();
+        if (tokenId == null || token.expiresAt() == null) {
+            return false;
+        }
+        Set<String> bucket = buckets.get(bucketOf(token.expiresAt()));
+        return bucket != null && bucket.contains(tokenId);
+    }
+
+    private long bucketOf(Instant expiresAt) {
+        return Math.floorDiv(expiresAt.toEpochMilli() + bucketMillis - 1, bucketMillis);
+    }
+
+    /**
+     * Drops the buckets whose tokens have all expired. Runs at most once per bucket width, on the revoking thread.
+     */
+    private void purgeExpired(long now) {
+        long current = now / bucketMillis;
+        if (current <= purgedBefore) {
+            return;
+        }
+        purgedBefore = current;
+        for (Iterator<Map.Entry<Long, Set<String>>> it = buckets.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Set<String>> entry = it.next();
+            if (entry.getKey() <= current) {
+                size.addAndGet(-entry.getValue().size());
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.springcrud.service;
+
+import com.example.springcrud.cache.UserInvalidationBus;
+import com.example.springcrud.repository.TokenVersionStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory table of per-user token versions.
+ * Every token carries the version that was current when it was issued; bumping a user's
+ * version makes all of their older tokens unusable without a database lookup on the request path.
+ * Only users whose tokens have been invalidated at least once get an entry, everyone else is version 0.
+ * Versions bumped on other nodes arrive through the {@link UserInvalidationBus}; every bump is also written to the
+ * {@link TokenVersionStore} and the table is loaded at startup, so a restart neither revives revoked tokens nor
+ * rejects current ones.
+ */
+@Component
+@Slf4j
+public class TokenVersionRegistry {
+
+    private final ConcurrentHashMap<Long, Integer> versions = new ConcurrentHashMap<>();
+    private final TokenVersionStore store;
+
+    public TokenVersionRegistry(UserInvalidationBus invalidationBus, TokenVersionStore store) {
+        this.store = store;
+        versions.putAll(store.loadAll());
+        log.info("Loaded token versions of {} users", versions.size());
+        invalidationBus.addListener(event -> advanceTo(event.userId(), event.tokenVersion()));
+    }
+
+    public int currentVersion(Long userId) {
+        return userId == null ? 0 : versions.getOrDefault(userId, 0);
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return currentVersion(userId) == tokenVersion;
+    }
+
+    /**
+     * Invalidates every token issued to the user so far. The new version is written to the store within the
+     * current transaction, but only becomes current on this node once that transaction commits (right away if
+     * there is none): a rolled-back change must not leave this node issuing tokens that no peer accepts.
+     * @return The new version, which tokens issued after the commit carry.
+     */
+    public int bump(Long userId) {
+        int version = currentVersion(userId) + 1;
+        store.save(userId, version);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    advanceTo(userId, version);
+                }
+            });
+        } else {
+            advanceTo(userId, version);
+        }
+        return version;
+    }
+
+    /**
+     * Raises the user's version to at least {@code version}; never moves it backwards,
+     * so events arriving out of order are harmless.
+     */
+    public void advanceTo(Long userId, int version) {
+        if (version <= 0) {
+            return; // Already everyone's default; e.g. registrations, which must not create an entry
+        }
+        versions.merge(userId, version, Math::max);
+    }
+}
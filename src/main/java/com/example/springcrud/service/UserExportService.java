@@ -0,0 +1,162 @@
+package com.example.springcrud.service;
+
+import com.example.springcrud.exception.ServiceBusyException;
+import com.example.springcrud.model.response.UserResponse;
+import com.example.springcrud.repository.UserStreamRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full user dumps as gzip-compressed CSV or NDJSON, written row by row to the response.
+ * Users are read in keyset chunks from a forward-only cursor, so memory stays flat and the
+ * connection is handed back between chunks. A slow client simply blocks the writer, which stops
+ * the cursor from advancing. Every row carries its id: an interrupted export is resumed by
+ * passing the last id received as {@code after}.
+ */
+@Service
+@Slf4j
+@Profile("!reactive")
+public class UserExportService {
+
+    public enum Format {
+        CSV("csv"),
+        NDJSON("ndjson");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    /**
+     * A started export holding one export slot. The slot is freed when the body has been written, or by
+     * {@link #release()} if the body never runs (the async request timed out or failed first); either
+     * may happen, or both, and the slot is only returned once.
+     */
+    public final class Export {
+
+        private final Format format;
+        private final long afterId;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Export(Format format, long afterId) {
+            this.format = format;
+            this.afterId = afterId;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            try {
+                write(format, afterId, out);
+            } finally {
+                release();
+            }
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                exportSlots.release();
+            }
+        }
+    }
+
+    private static final byte[] CSV_HEADER = "id,fullname,username,email,roles\n".getBytes(StandardCharsets.UTF_8);
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final UserStreamRepository userStreamRepository;
+    private final ObjectWriter userWriter;
+    private final int chunkSize;
+    private final Semaphore exportSlots;
+
+    public UserExportService(UserStreamRepository userStreamRepository, ObjectMapper objectMapper,
+                             @Value("${app.users.export.chunk-size:10000}") int chunkSize,
+                             @Value("${app.users.export.max-concurrent:2}") int maxConcurrent) {
+        this.userStreamRepository = userStreamRepository;
+        this.userWriter = objectMapper.writerFor(UserResponse.class);
+        this.chunkSize = chunkSize;
+        this.exportSlots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Reserves an export slot right away, so a busy node answers 503 before any headers are sent.
+     * The caller must either write the returned export or release it.
+     */
+    public Export start(Format format, long afterId) {
+        if (!exportSlots.tryAcquire()) {
+            throw new ServiceBusyException("Too many exports are running, please retry later.");
+        }
+        return new Export(format, afterId);
+    }
+
+    private void write(Format format, long afterId, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+        if (format == Format.CSV) {
+            gzip.write(CSV_HEADER);
+        }
+
+        // [0] users written in total, [1] users in the current chunk
+        long[] counts = new long[2];
+        long cursor = afterId;
+        try {
+            do {
+                counts[1] = 0;
+                cursor = userStreamRepository.streamUserChunkAfter(cursor, chunkSize, user -> {
+                    try {
+                        gzip.write(format == Format.CSV ? toCsv(user) : userWriter.writeValueAsBytes(user));
+                        gzip.write('\n');
+                        counts[0]++;
+                        counts[1]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } while (counts[1] == chunkSize);
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the last complete row tells it where to resume
+            log.info("User export after id {} aborted after {} users: {}", afterId, counts[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        gzip.finish();
+        out.flush();
+
+        log.info("Exported {} users after id {} as {} in {} ms", counts[0], afterId, format,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static byte[] toCsv(UserResponse user) {
+        StringBuilder line = new StringBuilder(96)
+                .append(user.getId()).append(',')
+                .append(csvField(user.getFullName())).append(',')
+                .append(csvField(user.getUsername())).append(',')
+                .append(csvField(user.getEmail())).append(',')
+                .append(csvField(String.join("|", user.getRoles())));
+        return line.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.springcrud.service;
+
+import com.example.springcrud.cache.UserExistenceIndex;
+import com.example.springcrud.cache.UserInvalidationBus;
+import com.example.springcrud.cache.UserInvalidationEvent;
+import com.example.springcrud.exception.InvalidInputException;
+import com.example.springcrud.model.request.UserRequest;
+import com.example.springcrud.model.response.ImportResponse;
+import com.example.springcrud.model.response.ImportRowResult;
+import com.example.springcrud.model.response.ImportRowResult.Status;
+import com.example.springcrud.repository.UserImportRepository;
+import com.example.springcrud.repository.UserImportRepository.NewUser;
+import com.example.springcrud.repository.UserRepository;
+import com.example.springcrud.util.UserImportReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Registers many users from one upload.
+ * The upload is consumed in batches: each batch is validated, de-duplicated within the upload and
+ * against the database (two IN queries, limited to the rows the {@link UserExistenceIndex} cannot rule out), hashed in parallel on the password pool and written
+ * with JDBC batch inserts. Every line gets a result, whatever happened to it.
+ */
+@Service
+@Slf4j
+@Profile("!reactive")
+public class UserImportService {
+
+    private final UserRepository userRepository;
+    private final UserImportRepository userImportRepository;
+    private final UserExistenceIndex existenceIndex;
+    private final UserInvalidationBus invalidationBus;
+    private final PasswordHashingService passwordHashing;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxRows;
+
+    public UserImportService(UserRepository userRepository, UserImportRepository userImportRepository,
+                             UserExistenceIndex existenceIndex, UserInvalidationBus invalidationBus,
+                             PasswordHashingService passwordHashing, Validator validator, ObjectMapper objectMapper,
+                             @Value("${app.users.import.batch-size:500}") int batchSize,
+                             @Value("${app.users.import.max-rows:100000}") int maxRows) {
+        this.userRepository = userRepository;
+        this.userImportRepository = userImportRepository;
+        this.existenceIndex = existenceIndex;
+        this.invalidationBus = invalidationBus;
+        this.passwordHashing = passwordHashing;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+    }
+
+    public ImportResponse importUsers(InputStream upload, UserImportReader.Format format) throws IOException {
+        ImportRun run = new ImportRun();
+        try {
+            UserImportReader.read(upload, format, objectMapper, run::add);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException(e.getMessage());
+        } catch (RowLimitReached e) {
+            // Earlier batches are already committed, so report them rather than failing the whole upload
+            run.results.add(new ImportRowResult(e.line, null, Status.NOT_PROCESSED,
+                    "Import limit of " + maxRows + " users reached; this line and everything after it were not processed."));
+            run.truncated = true;
+        }
+        run.flush();
+        run.results.sort(Comparator.comparingInt(ImportRowResult::getLine));
+
+        Map<Status, Long> counts = run.results.stream()
+                .collect(Collectors.groupingBy(ImportRowResult::getStatus, () -> new EnumMap<>(Status.class), Collectors.counting()));
+        log.info("Imported users: {}", counts);
+
+        return ImportResponse.builder()
+                .created(counts.getOrDefault(Status.CREATED, 0L).intValue())
+                .duplicates(counts.getOrDefault(Status.DUPLICATE, 0L).intValue())
+                .invalid(counts.getOrDefault(Status.INVALID, 0L).intValue())
+                .failed(counts.getOrDefault(Status.FAILED, 0L).intValue())
+                .truncated(run.truncated)
+                .results(run.results)
+                .build();
+    }
+
+    /**
+     * Stops reading the upload once it goes past {@code max-rows}.
+     */
+    private static final class RowLimitReached extends RuntimeException {
+
+        private final int line;
+
+        RowLimitReached(int line) {
+            super(null, null, false, false);
+            this.line = line;
+        }
+    }
+
+    /**
+     * State of one import: the pending batch, the results so far and every username/email already
+     * accepted earlier in the same upload.
+     */
+    private final class ImportRun {
+
+        private final List<ImportRowResult> results = new ArrayList<>();
+        private final Set<String> seenUsernames = new HashSet<>();
+        private final Set<String> seenEmails = new HashSet<>();
+        private final List<UserImportReader.Record> batch = new ArrayList<>();
+        private int rows;
+        private boolean truncated;
+
+        void add(UserImportReader.Record record) {
+            if (++rows > maxRows) {
+                throw new RowLimitReached(record.line());
+            }
+            batch.add(record);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<UserImportReader.Record> candidates = new ArrayList<>();
+            for (UserImportReader.Record record : batch) {
+                String problem = validate(record);
+                if (problem != null) {
+                    results.add(new ImportRowResult(record.line(), usernameOf(record), Status.INVALID, problem));
+                } else if (!seenUsernames.add(record.request().getUsername())) {
+                    results.add(duplicate(record, "Username appears more than once in the upload."));
+                } else if (!seenEmails.add(record.request().getEmail())) {
+                    results.add(duplicate(record, "Email appears more than once in the upload."));
+                } else {
+                    candidates.add(record);
+                }
+            }
+            batch.clear();
+
+            candidates = rejectExisting(candidates);
+            if (!candidates.isEmpty()) {
+                insert(candidates);
+            }
+        }
+
+        private List<UserImportReader.Record> rejectExisting(List<UserImportReader.Record> candidates) {
+            if (candidates.isEmpty()) {
+                return candidates;
+            }
+            // Rows whose username and email are both unknown to the index need no query at all
+            List<UserRequest> suspects = candidates.stream()
+                    .map(UserImportReader.Record::request)
+                    .filter(request -> existenceIndex.mightContainUsername(request.getUsername())
+                            || existenceIndex.mightContainEmail(request.getEmail()))
+                    .toList();
+            if (suspects.isEmpty()) {
+                return candidates;
+            }
+            Set<String> existingUsernames = new HashSet<>(userRepository.findExistingUsernames(
+                    suspects.stream().map(UserRequest::getUsername).toList()));
+            Set<String> existingEmails = new HashSet<>(userRepository.findExistingEmails(
+                    suspects.stream().map(UserRequest::getEmail).toList()));
+
+            List<UserImportReader.Record> fresh = new ArrayList<>(candidates.size());
+            for (UserImportReader.Record record : candidates) {
+                if (existingUsernames.contains(record.request().getUsername())) {
+                    results.add(duplicate(record, "Username '" + record.request().getUsername() + "' is already taken."));
+                } else if (existingEmails.contains(record.request().getEmail())) {
+                    results.add(duplicate(record, "Email '" + record.request().getEmail() + "' is already registered."));
+                } else {
+                    fresh.add(record);
+                }
+            }
+            return fresh;
+        }
+
+        private void insert(List<UserImportReader.Record> records) {
+            List<String> hashes = passwordHashing.encodeAll(records.stream().map(r -> r.request().getPassword()).toList());
+
+            List<NewUser> users = new ArrayList<>(records.size());
+            for (int i = 0; i < records.size(); i++) {
+                UserRequest request = records.get(i).request();
+                users.add(new NewUser(request.getFullname(), request.getUsername(), request.getEmail(), hashes.get(i)));
+            }
+
+            users.forEach(user -> existenceIndex.add(user.username(), user.email()));
+
+            Map<String, Long> created;
+            try {
+                created = userImportRepository.insertAll(users);
+            } catch (RuntimeException e) {
+                log.warn("Import batch of {} users failed: {}", users.size(), e.getMessage());
+                records.forEach(record -> results.add(new ImportRowResult(record.line(), usernameOf(record),
+                        Status.FAILED, "Could not be saved, please retry.")));
+                return;
+            }
+
+            // Let peers add the new names to their existence index
+            users.stream()
+                    .filter(user -> created.containsKey(user.username()))
+                    .forEach(user -> invalidationBus.publishAfterCommit(UserInvalidationEvent.of(
+                            created.get(user.username()), user.username(), 0, user.email())));
+
+            for (UserImportReader.Record record : records) {
+                if (!created.containsKey(record.request().getUsername())) {
+                    // Username, email or full name was taken by a concurrent registration
+                    results.add(duplicate(record, "Conflicts with an existing user."));
+                } else {
+                    results.add(new ImportRowResult(record.line(), usernameOf(record), Status.CREATED, null));
+                }
+            }
+        }
+
+        private String validate(UserImportReader.Record record) {
+            if (record.error() != null) {
+                return record.error();
+            }
+            Set<ConstraintViolation<UserRequest>> violations = validator.validate(record.request());
+            if (violations.isEmpty()) {
+                return null;
+            }
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+
+        private ImportRowResult duplicate(UserImportReader.Record record, String message) {
+            return new ImportRowResult(record.line(), usernameOf(record), Status.DUPLICATE, message);
+        }
+
+        private String usernameOf(UserImportReader.Record record) {
+            return record.request() != null ? record.request().getUsername() : null;
+        }
+    }
+}
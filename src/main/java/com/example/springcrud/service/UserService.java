@@ -1,137 +1,382 @@
 package com.example.springcrud.service;
 
+import com.example.springcrud.cache.CachedUser;
+import com.example.springcrud.cache.UserCache;
+import com.example.springcrud.cache.UserExistenceIndex;
+import com.example.springcrud.cache.UserInvalidationBus;
+import com.example.springcrud.cache.UserInvalidationEvent;
 import com.example.springcrud.config.UserPrincipal;
 import com.example.springcrud.exception.*;
 
+import com.example.springcrud.entity.Role;
 import com.example.springcrud.entity.User;
+import com.example.springcrud.model.projection.UserIdentity;
+import com.example.springcrud.model.projection.UserRoleRow;
+import com.example.springcrud.model.projection.UserSummary;
 import com.example.springcrud.model.request.DeleteAccountRequest;
 import com.example.springcrud.model.request.UpdateUserRequest;
 import com.example.springcrud.model.request.UserRequest;
+import com.example.springcrud.model.response.UserPageResponse;
 import com.example.springcrud.model.response.UserResponse;
+import com.example.springcrud.repository.RefreshTokenStore;
 import com.example.springcrud.repository.UserRepository;
+import com.example.springcrud.repository.UserStreamRepository;
+import com.example.springcrud.tracing.Traced;
 
 import com.example.springcrud.util.JwtUtil;
+import com.example.springcrud.util.TokenPair;
+import com.example.springcrud.util.UserConstraints;
+import com.example.springcrud.util.VerifiedToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 
-
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
-
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.context.annotation.Profile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 @Service
+@Traced
+@Profile("!reactive")
 @Slf4j
 public class UserService {
 
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final UserStreamRepository userStreamRepository;
+    private final UserCache userCache;
+    private final UserExistenceIndex existenceIndex;
+    private final UserInvalidationBus invalidationBus;
+    private final PasswordHashingService passwordHashing;
     private final JwtUtil jwtUtil;
+    private final TokenVersionRegistry tokenVersions;
+    private final TokenRevocationIndex revocations;
+    private final RefreshTokenStore refreshTokenStore;
+    private final Executor taskExecutor;
+    private final ObjectMapper objectMapper;
+    private final int maxPageSize;
+    private final int streamChunkSize;
+    private final Semaphore streamSlots;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    public UserService(UserRepository userRepository, UserStreamRepository userStreamRepository, UserCache userCache,
+                       UserExistenceIndex existenceIndex, UserInvalidationBus invalidationBus,
+                       PasswordHashingService passwordHashing, JwtUtil jwtUtil, TokenVersionRegistry tokenVersions,
+                       TokenRevocationIndex revocations, RefreshTokenStore refreshTokenStore,
+                       @Qualifier("applicationTaskExecutor") Executor taskExecutor,
+                       ObjectMapper objectMapper,
+                       @Value("${app.users.max-page-size:500}") int maxPageSize,
+                       @Value("${app.users.stream-chunk-size:500}") int streamChunkSize,
+                       @Value("${app.users.stream-max-concurrent:4}") int maxConcurrentStreams) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.userStreamRepository = userStreamRepository;
+        this.userCache = userCache;
+        this.existenceIndex = existenceIndex;
+        this.invalidationBus = invalidationBus;
+        this.passwordHashing = passwordHashing;
         this.jwtUtil = jwtUtil;
+        this.tokenVersions = tokenVersions;
+        this.revocations = revocations;
+        this.refreshTokenStore = refreshTokenStore;
+        this.taskExecutor = taskExecutor;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = maxPageSize;
+        this.streamChunkSize = streamChunkSize;
+        this.streamSlots = new Semaphore(maxConcurrentStreams);
     }
 
-    @CachePut(value = "usersByUsername", key = "#registerRequest.username")
-    public void registerUser(UserRequest registerRequest) {
-        if (userRepository.findByUsername(registerRequest.getUsername()).isPresent()) {
-            throw new UserIsPresentException("Username '" + registerRequest.getUsername() + "' is already taken.");
-        }
+    public CompletableFuture<Void> registerUser(UserRequest registerRequest) {
+        String username = registerRequest.getUsername();
+        String email = registerRequest.getEmail();
 
-        if (userRepository.findByEmail(registerRequest.getEmail()).isPresent()) {
-            throw new UserIsPresentException("Email '" + registerRequest.getEmail() + "' is already registered.");
+        // Not a uniqueness guarantee (the insert below is), just a way to turn away obvious duplicates
+        // before spending a bcrypt hash on them. Names the index has never seen skip it entirely.
+        if (existenceIndex.mightContainUsername(username) || existenceIndex.mightContainEmail(email)) {
+            rejectTakenIdentity(username, email);
         }
 
+        // Hash on the password pool, then hand the insert back to the general task executor
+        // so that pool threads never wait on the database
+        return passwordHashing.encode(registerRequest.getPassword())
+                .thenAcceptAsync(encodedPassword -> {
+                    User user = new User();
+                    user.setFullname(registerRequest.getFullname());
+                    user.setUsername(username);
+                    user.setEmail(email);
+                    user.setPassword(encodedPassword);
+                    user.setRoles(EnumSet.of(Role.USER));
+
+                    // Added before the insert so a concurrent lookup cannot miss the user. On a duplicate the
+                    // entries stay: they belong to the existing user too, and removing them would undercount.
+                    existenceIndex.add(username, email);
+                    try {
+                        // Flushed right away so the unique indexes decide here rather than at some later commit
+                        userRepository.saveAndFlush(user);
+                    } catch (DataIntegrityViolationException e) {
+                        throw duplicateUser(e, registerRequest);
+                    }
+
+                    // Peers learn the new names from the event and add them to their own index
+                    invalidationBus.publishAfterCommit(UserInvalidationEvent.of(user.getId(), username, 0, email));
+                }, taskExecutor);
+    }
 
-        User user = new User();
-        user.setFullname(registerRequest.getFullname());
-        user.setUsername(registerRequest.getUsername());
-        user.setEmail(registerRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
-        user.setRoles(new HashSet<>(Collections.singletonList("USER")));
-
-//        User user = User.builder()
-//                .fullname(registerRequest.getFullname())
-//                .username(registerRequest.getUsername())
-//                .email(registerRequest.getEmail())
-//                .password(passwordEncoder.encode(registerRequest.getPassword()))
-//                .roles(new HashSet<>(Collections.singletonList("USER")))
-//                .build();
+    private void rejectTakenIdentity(String username, String email) {
+        List<UserIdentity> taken = userRepository.findIdentitiesByUsernameOrEmail(username, email);
+        if (taken.stream().anyMatch(user -> user.username().equalsIgnoreCase(username))) {
+            throw new UserIsPresentException("Username '" + username + "' is already taken.");
+        }
+        if (taken.stream().anyMatch(user -> user.email().equalsIgnoreCase(email))) {
+            throw new UserIsPresentException("Email '" + email + "' is already registered.");
+        }
+    }
 
-        userRepository.save(user);
+    /**
+     * Turns a unique-index violation from the registration insert into the same response the up-front check gives.
+     */
+    private RuntimeException duplicateUser(DataIntegrityViolationException e, UserRequest registerRequest) {
+        Optional<UserConstraints.Field> field = UserConstraints.violatedField(e);
+        if (field.isEmpty()) {
+            // Unnamed constraint (schema created before they were named): ask the database which value clashed
+            rejectTakenIdentity(registerRequest.getUsername(), registerRequest.getEmail());
+            log.warn("Registration insert failed on an unrecognised constraint: {}", e.getMostSpecificCause().getMessage());
+            return new UserIsPresentException("A user with these details already exists.");
+        }
+        return switch (field.get()) {
+            case USERNAME -> new UserIsPresentException("Username '" + registerRequest.getUsername() + "' is already taken.");
+            case EMAIL -> new UserIsPresentException("Email '" + registerRequest.getEmail() + "' is already registered.");
+            case FULLNAME -> new UserIsPresentException("Full name '" + registerRequest.getFullname() + "' is already registered.");
+        };
     }
 
     // --- R: Login / Authentication (This is for your custom /login endpoint's JSON body) ---
 
-    public String loginAndGetToken(String username, String rawPassword) {
+    public CompletableFuture<TokenPair> loginAndGetToken(String username, String rawPassword) {
 
+            // Always asks the database: the existence index may not have heard of a user registered on
+            // another node yet, and nothing would catch a wrongly rejected login the way the unique indexes
+            // catch a wrongly admitted registration
             Optional<User> userOptional = userRepository.findByUsername(username);
 
-            if (userOptional.isEmpty() || !passwordEncoder.matches(rawPassword, userOptional.get().getPassword())) {
-                throw new InvalidCredentialsException("Invalid username or password."); // custom exception
+            if (userOptional.isEmpty()) {
+                return CompletableFuture.failedFuture(new InvalidCredentialsException("Invalid username or password."));
             }
 
+            User user = userOptional.get();
+            return passwordHashing.matches(rawPassword, user.getPassword())
+                    .thenApply(matched -> {
+                        if (!matched) {
+                            throw new InvalidCredentialsException("Invalid username or password."); // custom exception
+                        }
+                        if (passwordHashing.needsUpgrade(user.getPassword())) {
+                            upgradePasswordHash(user, rawPassword);
+                        }
+                        return jwtUtil.issueTokens(user, tokenVersions.currentVersion(user.getId()));
+                    });
+    }
+
+    /**
+     * Exchanges a refresh token for a new access/refresh pair. Each refresh token works once: presenting one
+     * that was already exchanged means it was copied, so every session of that user is revoked.
+     * Only the user cache is consulted, for the claims of the new access token.
+     */
+    public TokenPair refreshTokens(String refreshToken) {
+        VerifiedToken verified = jwtUtil.verify(refreshToken)
+                .filter(VerifiedToken::isRefreshToken)
+                .filter(token -> token.userId() != null)
+                .orElseThrow(() -> new InvalidCredentialsException("Invalid refresh token."));
+
+        Long userId = verified.userId();
+        if (!tokenVersions.isCurrent(userId, verified.tokenVersion())) {
+            throw new InvalidCredentialsException("Refresh token has been revoked.");
+        }
+        // The store decides first use across nodes and restarts. The local index only learns the outcome afterwards,
+        // so a failed store write leaves the token usable for a retry instead of turning it into "reuse"
+        if (revocations.isRevoked(verified) || !refreshTokenStore.markUsed(verified.tokenId(), verified.expiresAt())) {
+            log.warn("Refresh token reuse for user id {}; revoking all of their tokens", userId);
+            revokeAllTokens(userId, verified.subject());
+            throw new InvalidCredentialsException("Refresh token has been revoked.");
+        }
+        revocations.revoke(verified);
+
+        CachedUser user = userCache.findById(userId)
+                .orElseThrow(() -> new InvalidCredentialsException("Refresh token has been revoked."));
+        return jwtUtil.issueTokens(user.id(), user.username(), user.email(), user.roles(),
+                tokenVersions.currentVersion(userId));
+    }
+
+    /**
+     * Revokes the access token of the current request and, if given, the refresh token of the same session.
+     */
+    public void logout(String accessToken, String refreshToken) {
+        Optional<VerifiedToken> access = jwtUtil.verify(accessToken);
+        access.ifPresent(revocations::revoke);
+
+        if (refreshToken != null) {
+            jwtUtil.verify(refreshToken)
+                    .filter(VerifiedToken::isRefreshToken)
+                    .filter(token -> access.isPresent() && Objects.equals(token.userId(), access.get().userId()))
+                    .filter(revocations::revoke)
+                    .ifPresent(token -> refreshTokenStore.markUsed(token.tokenId(), token.expiresAt()));
+        }
+    }
 
-            return jwtUtil.generateToken(username);
+    private void revokeAllTokens(Long userId, String username) {
+        int tokenVersion = tokenVersions.bump(userId);
+        invalidationBus.publishAfterCommit(UserInvalidationEvent.of(userId, username, tokenVersion));
     }
 
 
+    /**
+     * Re-hashes a password that is below the current policy, off the login path.
+     * If the hashing pool is busy the upgrade is simply skipped and retried on a later login.
+     */
+    private void upgradePasswordHash(User user, String rawPassword) {
+        try {
+            passwordHashing.encode(rawPassword)
+                    .thenAcceptAsync(newHash -> {
+                        if (userRepository.upgradePassword(user.getUsername(), user.getPassword(), newHash) == 1) {
+                            log.info("Upgraded password hash for user id {}", user.getId());
+                        }
+                    }, taskExecutor)
+                    .exceptionally(ex -> {
+                        log.warn("Password hash upgrade failed for user id {}: {}", user.getId(), ex.getMessage());
+                        return null;
+                    });
+        } catch (ServiceBusyException e) {
+            log.debug("Hashing pool busy, postponing hash upgrade for user id {}", user.getId());
+        }
+    }
 
-//    @Cacheable("users")
-@Cacheable(value = "allUsers")
-public List<UserResponse> getAllUsers() {
+    /**
+     * Returns one page of users ordered by id, starting right after {@code afterId}.
+     * One extra row is fetched to know whether another page follows.
+     */
+    public UserPageResponse getUsersPage(Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        long cursor = afterId == null ? 0L : afterId;
+
+        List<UserSummary> users = userRepository.findSummariesByIdGreaterThanOrderByIdAsc(cursor, Limit.of(pageSize + 1));
+        if (users.isEmpty() && afterId == null) {
+            throw new UserNotFoundException("No users found in the system.");
+        }
+
+        boolean hasMore = users.size() > pageSize;
+        List<UserSummary> page = hasMore ? users.subList(0, pageSize) : users;
 
-            List<User> users = userRepository.findAll();
-            if (users.isEmpty()) {
-                throw new UserNotFoundException("No users found in the system.");
+        Map<Long, Set<String>> rolesByUser = new HashMap<>();
+        if (!page.isEmpty()) {
+            List<Long> ids = page.stream().map(UserSummary::id).toList();
+            for (UserRoleRow row : userRepository.findRolesByUserIds(ids)) {
+                rolesByUser.computeIfAbsent(row.userId(), id -> new LinkedHashSet<>()).add(row.role().name());
             }
-            return users.stream()
-                    .map(user -> {
-                        UserResponse response = new UserResponse();
-                        response.setId(user.getId());
-                        response.setFullName(user.getFullname());
-                        response.setUsername(user.getUsername());
-                        response.setEmail(user.getEmail());
-                        response.setRoles(user.getRoles());
-                        return response;
-                    })
-                    .toList();
+        }
 
+        List<UserResponse> items = page.stream()
+                .map(user -> toResponse(user, rolesByUser.getOrDefault(user.id(), Set.of())))
+                .toList();
+
+        return UserPageResponse.builder()
+                .items(items)
+                .nextCursor(hasMore ? items.get(items.size() - 1).getId() : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * A started NDJSON listing holding one stream slot, released like {@link UserExportService.Export}:
+     * when the body has been written, or by {@link #release()} if it never runs, and only once.
+     */
+    public final class UserStream {
+
+        private final long afterId;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private UserStream(long afterId) {
+            this.afterId = afterId;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            try {
+                writeUsers(afterId, out);
+            } finally {
+                release();
+            }
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                streamSlots.release();
+            }
+        }
+    }
+
+    /**
+     * Reserves a stream slot right away, so a busy node answers 503 before any headers are sent.
+     * The caller must either write the returned stream or release it.
+     */
+    public UserStream startStream(long afterId) {
+        if (!streamSlots.tryAcquire()) {
+            throw new ServiceBusyException("Too many streamed listings are running, please retry later.");
+        }
+        return new UserStream(afterId);
+    }
+
+    /**
+     * Writes every user after {@code afterId} as newline-delimited JSON, in keyset chunks. Each chunk is read
+     * completely before it is written, so the connection goes back to the pool before the client is waited on
+     * and a slow reader never holds one; memory stays bounded by the chunk size whatever the table size.
+     */
+    private void writeUsers(long afterId, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(UserResponse.class);
+        List<UserResponse> chunk = new ArrayList<>(streamChunkSize);
+        long cursor = afterId;
+        do {
+            chunk.clear();
+            cursor = userStreamRepository.streamUserChunkAfter(cursor, streamChunkSize, chunk::add);
+            for (UserResponse user : chunk) {
+                out.write(writer.writeValueAsBytes(user));
+                out.write('\n');
+            }
+            out.flush();
+        } while (chunk.size() == streamChunkSize);
     }
 
 
     // --- R: Read (Retrieve user by ID) ---
-    @Cacheable(value = "users", key = "#id")
     public UserResponse getUserProfileById(Long id) {
-        User user = userRepository.findById(id)
+        return userCache.findById(id)
+                .map(CachedUser::toResponse)
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
+    }
 
-
+    private static UserResponse toResponse(UserSummary user, Set<String> roles) {
         UserResponse response = new UserResponse();
-        response.setId(user.getId());
-        response.setFullName(user.getFullname());
-        response.setUsername(user.getUsername());
-        response.setEmail(user.getEmail());
-        response.setRoles(user.getRoles());
-
+        response.setId(user.id());
+        response.setFullName(user.fullname());
+        response.setUsername(user.username());
+        response.setEmail(user.email());
+        response.setRoles(roles);
         return response;
     }
 
             //--UPDATE--
 
-    @CacheEvict(value = "usersByUsername", key = "#request.username")
     @Transactional
     public void updateUserByOwnerOrAdmin(UpdateUserRequest request, UserPrincipal loggedInUser) {
         if (request == null) {
@@ -150,15 +395,28 @@ public List<UserResponse> getAllUsers() {
             User existingUser = userRepository.findByUsername(request.getUsername())
                     .orElseThrow(() -> new UserNotFoundException("User not found with username: " + request.getUsername()));
 
+            String previousEmail = existingUser.getEmail();
             existingUser.setFullname(request.getFullname());
             existingUser.setEmail(request.getEmail());
+            if (!previousEmail.equalsIgnoreCase(request.getEmail())) {
+                existenceIndex.add(null, request.getEmail());
+                existenceIndex.removeAfterCommit(null, previousEmail);
+            }
 
-            if (request.getPassword() != null && !request.getPassword().isBlank()) {
-                existingUser.setPassword(passwordEncoder.encode(request.getPassword()));
+            boolean passwordChanged = request.getPassword() != null && !request.getPassword().isBlank();
+            if (passwordChanged) {
+                existingUser.setPassword(passwordHashing.encodeAndWait(request.getPassword()));
             }
 
             userRepository.save(existingUser);
 
+            // Tokens carry the email, and a new password must end every session opened with the old one;
+            // a fullname change touches neither, so it leaves the user's sessions alone
+            boolean revokeTokens = passwordChanged || !previousEmail.equalsIgnoreCase(existingUser.getEmail());
+            int tokenVersion = revokeTokens ? tokenVersions.bump(existingUser.getId()) : 0;
+            invalidationBus.publishAfterCommit(UserInvalidationEvent.of(existingUser.getId(), existingUser.getUsername(),
+                    tokenVersion, previousEmail, existingUser.getEmail()));
+
         } catch (Exception e) {
             throw new UserOperationException("Failed to update user: " + e.getMessage());
         }
@@ -167,10 +425,6 @@ public List<UserResponse> getAllUsers() {
 
         //  --DELETE--
 
-    @Caching(evict = {
-            @CacheEvict(value = "allUsers", allEntries = true),
-            @CacheEvict(value = "usersByUsername", key = "#request.username")
-    })
     @Transactional
     public void deleteUser(DeleteAccountRequest request, UserPrincipal loggedInUser) {
 
@@ -182,7 +436,7 @@ public List<UserResponse> getAllUsers() {
         User userToDelete = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new UserNotFoundException("User not found with username: " + request.getUsername()));
 
-        if (!passwordEncoder.matches(request.getPassword(), userToDelete.getPassword())) {
+        if (!passwordHashing.matchesAndWait(request.getPassword(), userToDelete.getPassword())) {
             throw new InvalidInputException("Incorrect password for account deletion.");
         }
 
@@ -190,7 +444,11 @@ public List<UserResponse> getAllUsers() {
             throw new UserOperationException("Please confirm account deletion by setting 'confirmDeletion' to true.");
         }
 
+        existenceIndex.removeAfterCommit(userToDelete.getUsername(), userToDelete.getEmail());
         userRepository.delete(userToDelete);
+        int tokenVersion = tokenVersions.bump(userToDelete.getId());
+        invalidationBus.publishAfterCommit(UserInvalidationEvent.of(userToDelete.getId(), userToDelete.getUsername(),
+                tokenVersion, userToDelete.getEmail()));
     }
 
 
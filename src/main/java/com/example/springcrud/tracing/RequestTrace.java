@@ -0,0 +1,181 @@
+package com.example.springcrud.tracing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spans recorded for one request on the thread that serves it.
+ * <p>
+ * A trace lives in a thread local between {@link #begin} and {@link #finish}. Spans are stored in
+ * parallel primitive arrays and addressed by index, so starting and ending one costs two
+ * {@code System.nanoTime()} calls and no allocation. When the request is not sampled, every static
+ * method returns straight away. A finished trace is never written to again, so the recorder can share
+ * it with readers without copying.
+ */
+public final class RequestTrace {
+
+    /** Returned by {@link #start} when nothing is being traced; {@link #end} ignores it. */
+    public static final int NO_SPAN = -1;
+
+    private static final int INITIAL_SPANS = 16;
+    private static final int MAX_SPANS = 256;
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final String method;
+    private final String uri;
+    private final long startedAtMillis;
+
+    private String[] names = new String[INITIAL_SPANS];
+    private long[] starts = new long[INITIAL_SPANS];
+    private long[] ends = new long[INITIAL_SPANS];
+    private int[] parents = new int[INITIAL_SPANS];
+    private int size;
+    private int open = NO_SPAN;
+    private int dropped;
+    private int status;
+
+    private RequestTrace(String method, String uri) {
+        this.method = method;
+        this.uri = uri;
+        this.startedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Starts tracing the current thread's request; its root span is named after the request itself.
+     */
+    static void begin(String method, String uri) {
+        RequestTrace trace = new RequestTrace(method, uri);
+        CURRENT.set(trace);
+        trace.push(method + " " + uri);
+    }
+
+    /**
+     * Closes every span still open and detaches the trace from the thread.
+     *
+     * @return The finished trace, or null if this thread was not tracing.
+     */
+    static RequestTrace finish(int status) {
+        RequestTrace trace = detach();
+        return trace == null ? null : trace.close(status);
+    }
+
+    /**
+     * Detaches the trace from the thread but leaves it open, for a request that carries on asynchronously.
+     * Spans on the threads that complete it are not recorded; {@link #close} ends the root span once it is done.
+     *
+     * @return The open trace, or null if this thread was not tracing.
+     */
+    static RequestTrace detach() {
+        RequestTrace trace = CURRENT.get();
+        CURRENT.remove();
+        return trace;
+    }
+
+    /**
+     * Closes every span still open, the root span included, and records the response status.
+     */
+    RequestTrace close(int status) {
+        long now = System.nanoTime();
+        while (open != NO_SPAN) {
+            ends[open] = now;
+            open = parents[open];
+        }
+        this.status = status;
+        return this;
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Opens a span below the innermost open one.
+     *
+     * @return A handle for {@link #end}, or {@link #NO_SPAN} if the request is not traced.
+     */
+    public static int start(String name) {
+        RequestTrace trace = CURRENT.get();
+        return trace == null ? NO_SPAN : trace.push(name);
+    }
+
+    /**
+     * Closes the span and any spans opened inside it that were left open.
+     */
+    public static void end(int span) {
+        if (span == NO_SPAN) {
+            return;
+        }
+        RequestTrace trace = CURRENT.get();
+        if (trace == null || span >= trace.size || trace.ends[span] != 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        while (trace.open != NO_SPAN && trace.open != span) {
+            trace.ends[trace.open] = now;
+            trace.open = trace.parents[trace.open];
+        }
+        trace.ends[span] = now;
+        trace.open = trace.parents[span];
+    }
+
+    private int push(String name) {
+        if (size == names.length) {
+            if (size == MAX_SPANS) {
+                // Runaway loops over a traced bean must not grow the trace without bound
+                dropped++;
+                return NO_SPAN;
+            }
+            int capacity = Math.min(size * 2, MAX_SPANS);
+            names = Arrays.copyOf(names, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+        }
+        int span = size++;
+        names[span] = name;
+        parents[span] = open;
+        starts[span] = System.nanoTime();
+        open = span;
+        return span;
+    }
+
+    public long durationNanos() {
+        return ends[0] - starts[0];
+    }
+
+    /**
+     * Read-only view for the actuator endpoint; built on demand, never on the request path.
+     */
+    public View toView() {
+        List<SpanView> spans = new ArrayList<>(size);
+        int[] depths = new int[size];
+        for (int i = 0; i < size; i++) {
+            depths[i] = parents[i] == NO_SPAN ? 0 : depths[parents[i]] + 1;
+            spans.add(new SpanView(names[i], depths[i], micros(starts[i] - starts[0]), micros(ends[i] - starts[i])));
+        }
+        return new View(method, uri, status, Instant.ofEpochMilli(startedAtMillis), micros(durationNanos()),
+                dropped, spans);
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * @param droppedSpans Spans not recorded because the trace hit its size limit.
+     * @param spans        In start order; {@code depth} 0 is the request itself.
+     */
+    public record View(String method, String uri, int status, Instant startedAt, long durationMicros,
+                       int droppedSpans, List<SpanView> spans) {
+    }
+
+    /**
+     * @param offsetMicros When the span started, relative to the start of the request.
+     */
+    public record SpanView(String name, int depth, long offsetMicros, long durationMicros) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.springcrud.tracing;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Pair of markers placed at both ends of the Spring Security filter chain, so a trace shows how long the
+ * request spent in security filters before it reached the controller.
+ * When a filter rejects the request the closing marker never runs, and the span is closed when the trace
+ * finishes.
+ * Not a bean on purpose: Spring Boot would otherwise also register it with the servlet container.
+ */
+public final class SecurityChainSpanFilter implements Filter {
+
+    private static final String SPAN_ATTRIBUTE = SecurityChainSpanFilter.class.getName() + ".span";
+
+    private final boolean opening;
+
+    private SecurityChainSpanFilter(boolean opening) {
+        this.opening = opening;
+    }
+
+    public static SecurityChainSpanFilter opening() {
+        return new SecurityChainSpanFilter(true);
+    }
+
+    public static SecurityChainSpanFilter closing() {
+        return new SecurityChainSpanFilter(false);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (RequestTrace.isActive()) {
+            if (opening) {
+                request.setAttribute(SPAN_ATTRIBUTE, RequestTrace.start("securityFilterChain"));
+            } else if (request.getAttribute(SPAN_ATTRIBUTE) instanceof Integer span) {
+                RequestTrace.end(span);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
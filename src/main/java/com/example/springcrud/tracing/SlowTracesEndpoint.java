@@ -0,0 +1,42 @@
+package com.example.springcrud.tracing;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/slowtraces}: the slowest request traces since the last reset, plus the most recent ones.
+ * DELETE clears the slowest board, e.g. after a deploy or a load test.
+ */
+@Component
+@Profile("!reactive")
+@Endpoint(id = "slowtraces")
+public class SlowTracesEndpoint {
+
+    private static final int DEFAULT_RECENT = 20;
+
+    private final TraceRecorder recorder;
+
+    public SlowTracesEndpoint(TraceRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public Map<String, List<RequestTrace.View>> traces(@Nullable Integer recent) {
+        return Map.of(
+                "slowest", recorder.slowest().stream().map(RequestTrace::toView).toList(),
+                "recent", recorder.recent(recent != null ? recent : DEFAULT_RECENT).stream()
+                        .map(RequestTrace::toView).toList());
+    }
+
+    @DeleteOperation
+    public void reset() {
+        recorder.resetSlowest();
+    }
+}
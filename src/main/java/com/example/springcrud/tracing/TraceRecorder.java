@@ -0,0 +1,107 @@
+package com.example.springcrud.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps finished request traces in memory: a ring buffer of the most recent ones and a board of the
+ * slowest seen since the last reset.
+ * Recording a trace is one slot write plus a volatile read; only a trace slower than everything
+ * on a full board takes the lock.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class TraceRecorder {
+
+    private static final Comparator<RequestTrace> BY_DURATION = Comparator.comparingLong(RequestTrace::durationNanos);
+
+    private final double sampleRate;
+    private final int slowestSize;
+
+    private final AtomicReferenceArray<RequestTrace> recent;
+    private final AtomicLong recentCursor = new AtomicLong();
+
+    // Min-heap, so the fastest of the slow traces is the one to drop
+    private final PriorityQueue<RequestTrace> slowest;
+
+    // Duration a trace has to beat to get onto a full board; 0 while the board still has room
+    private volatile long slowestThreshold;
+
+    public TraceRecorder(@Value("${app.tracing.sample-rate:0.01}") double sampleRate,
+                         @Value("${app.tracing.recent-size:256}") int recentSize,
+                         @Value("${app.tracing.slowest-size:20}") int slowestSize) {
+        this.sampleRate = sampleRate;
+        this.slowestSize = slowestSize;
+        this.recent = new AtomicReferenceArray<>(recentSize);
+        this.slowest = new PriorityQueue<>(slowestSize + 1, BY_DURATION);
+        log.info("Tracing {}% of requests, keeping the last {} and the slowest {}", sampleRate * 100, recentSize,
+                slowestSize);
+    }
+
+    public boolean shouldSample() {
+        return sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    public void record(RequestTrace trace) {
+        if (recent.length() > 0) {
+            recent.set((int) (recentCursor.getAndIncrement() % recent.length()), trace);
+        }
+        if (trace.durationNanos() > slowestThreshold) {
+            offerSlow(trace);
+        }
+    }
+
+    private synchronized void offerSlow(RequestTrace trace) {
+        if (slowestSize <= 0) {
+            return;
+        }
+        slowest.add(trace);
+        if (slowest.size() > slowestSize) {
+            slowest.poll();
+        }
+        if (slowest.size() == slowestSize) {
+            slowestThreshold = slowest.peek().durationNanos();
+        }
+    }
+
+    /**
+     * @return The slowest traces, slowest first.
+     */
+    public synchronized List<RequestTrace> slowest() {
+        List<RequestTrace> traces = new ArrayList<>(slowest);
+        traces.sort(BY_DURATION.reversed());
+        return traces;
+    }
+
+    /**
+     * @return Up to {@code limit} of the most recent traces, newest first.
+     */
+    public List<RequestTrace> recent(int limit) {
+        long cursor = recentCursor.get();
+        int count = (int) Math.min(Math.min(limit, recent.length()), cursor);
+        List<RequestTrace> traces = new ArrayList<>(count);
+        for (long i = cursor - 1; i >= cursor - count; i--) {
+            RequestTrace trace = recent.get((int) (i % recent.length()));
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+
+    public synchronized void resetSlowest() {
+        slowest.clear();
+        slowestThreshold = 0;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.springcrud.tracing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Records a span for every public method call on the annotated bean while the current request is traced.
+ * Works on classes and on repository interfaces.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Traced {
+}
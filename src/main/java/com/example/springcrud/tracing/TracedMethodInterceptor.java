@@ -0,0 +1,31 @@
+package com.example.springcrud.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps calls on {@link Traced} beans in a span named {@code Type.method}.
+ */
+class TracedMethodInterceptor implements MethodInterceptor {
+
+    // Span names are built once per method rather than on every call
+    private final ConcurrentHashMap<Method, String> spanNames = new ConcurrentHashMap<>();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!RequestTrace.isActive()) {
+            return invocation.proceed();
+        }
+        Method method = invocation.getMethod();
+        int span = RequestTrace.start(spanNames.computeIfAbsent(method,
+                m -> m.getDeclaringClass().getSimpleName() + "." + m.getName()));
+        try {
+            return invocation.proceed();
+        } finally {
+            RequestTrace.end(span);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.springcrud.tracing;
+
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Adds span recording to every {@link Traced} bean. Beans that are already proxied, such as
+ * transactional services and Spring Data repositories, get the advice in front of their existing
+ * interceptors, so a span also covers the transaction commit.
+ */
+@Configuration
+@Profile("!reactive")
+public class TracingConfig {
+
+    // Static so it is registered before the beans it has to advise are created
+    @Bean
+    public static BeanPostProcessor tracedBeanPostProcessor() {
+        return new TracedBeanPostProcessor();
+    }
+
+    private static final class TracedBeanPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+        private TracedBeanPostProcessor() {
+            this.advisor = new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(Traced.class, true),
+                    new TracedMethodInterceptor());
+            setBeforeExistingAdvisors(true);
+            // Beans are injected by their class (e.g. MyUserDetailsService), so interface-only proxies would not do
+            setProxyTargetClass(true);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.springcrud.tracing;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opens the request's trace just outside the Spring Security filter chain, so the root span covers
+ * authentication as well as the controller, and hands the finished trace to the {@link TraceRecorder}.
+ * Requests that go async (login, registration, streaming exports) are recorded when the async work
+ * completes, so their root span covers the whole request rather than just the first dispatch.
+ */
+@Component
+@Profile("!reactive")
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class TracingFilter extends OncePerRequestFilter {
+
+    private final TraceRecorder recorder;
+
+    public TracingFilter(TraceRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        // Scraping metrics and reading traces should not push real requests out of the buffer
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (!recorder.shouldSample()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestTrace.begin(request.getMethod(), request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                RequestTrace trace = RequestTrace.detach();
+                if (trace != null) {
+                    request.getAsyncContext().addListener(new RecordOnComplete(trace, response));
+                }
+            } else {
+                RequestTrace trace = RequestTrace.finish(response.getStatus());
+                if (trace != null) {
+                    recorder.record(trace);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records an async request's trace once the container completes it; timeouts and errors end in completion too.
+     */
+    private final class RecordOnComplete implements AsyncListener {
+
+        private final RequestTrace trace;
+        private final HttpServletResponse response;
+
+        RecordOnComplete(RequestTrace trace, HttpServletResponse response) {
+            this.trace = trace;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            recorder.record(trace.close(response.getStatus()));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
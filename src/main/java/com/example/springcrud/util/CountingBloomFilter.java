@@ -0,0 +1,117 @@
+package com.example.springcrud.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe counting Bloom filter over strings: answers "definitely absent" or "possibly present",
+ * and unlike a plain Bloom filter supports removal.
+ * <p>
+ * Each slot is a 4-bit counter, sixteen to a {@code long}, updated with compare-and-set. A counter that
+ * reaches 15 sticks there, since after an overflow it can no longer tell how many keys share it.
+ * Removing a key that was never added corrupts the filter (it can produce false "absent" answers),
+ * so callers must only remove what they added.
+ */
+public final class CountingBloomFilter {
+
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final long SATURATED = COUNTER_MASK;
+
+    private final AtomicLongArray words;
+    private final long slots;
+    private final int hashes;
+    private final long capacity;
+
+    /**
+     * @param capacity          Number of keys the filter is sized for.
+     * @param falsePositiveRate Target "possibly present" rate for absent keys at that capacity.
+     */
+    public CountingBloomFilter(long capacity, double falsePositiveRate) {
+        long expected = Math.max(1, capacity);
+        double ln2 = Math.log(2);
+        long optimalSlots = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.slots = Math.max(COUNTERS_PER_WORD, optimalSlots);
+        this.hashes = Math.max(1, (int) Math.round((double) slots / expected * ln2));
+        this.words = new AtomicLongArray(Math.toIntExact((slots + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD));
+        this.capacity = expected;
+    }
+
+    public void add(String key) {
+        long hash = hash(key);
+        for (int i = 0; i < hashes; i++) {
+            update(slot(hash, i), 1);
+        }
+    }
+
+    public void remove(String key) {
+        long hash = hash(key);
+        for (int i = 0; i < hashes; i++) {
+            update(slot(hash, i), -1);
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        for (int i = 0; i < hashes; i++) {
+            long slot = slot(hash, i);
+            if (counter(words.get((int) (slot / COUNTERS_PER_WORD)), slot) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Approximate heap footprint of the counters.
+     */
+    public long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    private void update(long slot, int delta) {
+        int index = (int) (slot / COUNTERS_PER_WORD);
+        int shift = (int) (slot % COUNTERS_PER_WORD) * COUNTER_BITS;
+        while (true) {
+            long word = words.get(index);
+            long count = (word >>> shift) & COUNTER_MASK;
+            if (count == SATURATED || (delta < 0 && count == 0)) {
+                return;
+            }
+            long updated = (word & ~(COUNTER_MASK << shift)) | ((count + delta) << shift);
+            if (words.compareAndSet(index, word, updated)) {
+                return;
+            }
+        }
+    }
+
+    private static long counter(long word, long slot) {
+        return (word >>> ((slot % COUNTERS_PER_WORD) * COUNTER_BITS)) & COUNTER_MASK;
+    }
+
+    // Kirsch-Mitzenmacher: k slot indexes from the two halves of one 64-bit hash
+    private long slot(long hash, int i) {
+        long h1 = hash & 0xFFFFFFFFL;
+        long h2 = hash >>> 32;
+        return Math.floorMod(h1 + i * h2, slots);
+    }
+
+    // FNV-1a over the UTF-16 chars, finished with the MurmurHash3 64-bit mixer for better spread
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
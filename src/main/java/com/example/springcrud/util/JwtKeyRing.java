@@ -0,0 +1,327 @@
+package com.example.springcrud.util;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PrivateJwk;
+import io.jsonwebtoken.security.PublicJwk;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The asymmetric keys tokens are signed with (EdDSA/Ed25519 or ES256), each identified by a {@code kid}.
+ * Exactly one key signs at a time; every key that may still have live tokens stays available for verification
+ * and is published as a JWK Set, so other services can verify our tokens without holding any secret.
+ * <p>
+ * Keys come from one of two places:
+ * <ul>
+ *     <li>Generated in memory, with a new key every {@code rotation-interval}. The next key is published
+ *     one interval before it starts signing, so JWKS caches downstream already have it. Every node would
+ *     generate its own keys and a restart forgets them, so this has to be asked for explicitly with
+ *     {@code app.jwt.keys.single-node=true}.</li>
+ *     <li>A directory of JWK files ({@code app.jwt.keys.dir}), shared by all nodes and re-read every
+ *     {@code reload-interval}. Private JWKs can sign; public ones only verify. The newest private key signs
+ *     once its file is {@code activation-delay} old. Rotating means dropping in a new file, and removing the
+ *     old one once its tokens have expired.</li>
+ * </ul>
+ * Without either, startup fails rather than issuing tokens no other node can verify.
+ * Readers see an immutable snapshot, swapped whole whenever the keys change.
+ */
+@Component
+@Slf4j
+public class JwtKeyRing {
+
+    public static final String EDDSA = "EdDSA";
+    public static final String ES256 = "ES256";
+
+    private final String algorithm;
+    private final Duration rotationInterval;
+    // A retired generated key must outlive the longest token it signed, i.e. a refresh token
+    private final long retentionMillis;
+    private final String keysDir;
+    private final boolean singleNode;
+    private final Duration reloadInterval;
+    private final Duration activationDelay;
+    private final Duration jwksMaxAge;
+
+    private volatile Snapshot snapshot;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param kid          Key id, carried in the header of every token the key signs.
+     * @param algorithm    JWS algorithm, EdDSA or ES256.
+     * @param privateKey   Null for keys that only verify.
+     * @param publicKey    Verification key, built once and reused for every token with this kid.
+     * @param activeFrom   When the key may start signing.
+     * @param retainUntil  When the key can be forgotten, or null while it is current or upcoming.
+     */
+    record SigningKey(String kid, String algorithm, PrivateKey privateKey, PublicKey publicKey,
+                      Instant activeFrom, Instant retainUntil) {
+    }
+
+    private record Snapshot(List<SigningKey> keys, SigningKey signing, Map<String, PublicKey> verificationKeys,
+                            Map<String, Object> jwks) {
+    }
+
+    /**
+     * @param retentionMillis  How long a retired generated key stays available for verification.
+     * @param keysDir          Directory of JWK files shared by every node; empty to generate keys in memory.
+     * @param singleNode       Allows generating keys in memory when there is no {@code keysDir}.
+     * @param activationDelay  How old a new key file must be before its key signs.
+     * @param jwksMaxAge       How long clients may cache the published JWK Set.
+     */
+    public JwtKeyRing(@Value("${app.jwt.keys.algorithm:EdDSA}") String algorithm,
+                      @Value("${app.jwt.keys.rotation-interval:24h}") Duration rotationInterval,
+                      @Value("${JWT_EXPIRATION:86400000}") long retentionMillis,
+                      @Value("${app.jwt.keys.dir:}") String keysDir,
+                      @Value("${app.jwt.keys.single-node:false}") boolean singleNode,
+                      @Value("${app.jwt.keys.reload-interval:1m}") Duration reloadInterval,
+                      @Value("${app.jwt.keys.activation-delay:5m}") Duration activationDelay,
+                      @Value("${app.jwt.keys.jwks-max-age:3m}") Duration jwksMaxAge) {
+        this.algorithm = algorithm;
+        this.rotationInterval = rotationInterval;
+        this.retentionMillis = retentionMillis;
+        this.keysDir = keysDir;
+        this.singleNode = singleNode;
+        this.reloadInterval = reloadInterval;
+        this.activationDelay = activationDelay;
+        this.jwksMaxAge = jwksMaxAge;
+    }
+
+    /**
+     * A ring with generated keys and no rotation, for code that builds {@link JwtUtil} by hand (benchmarks).
+     */
+    public static JwtKeyRing inMemory(String algorithm) {
+        JwtKeyRing ring = new JwtKeyRing(algorithm, Duration.ofHours(24), Duration.ofHours(24).toMillis(), "", true,
+                Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(3));
+        ring.publish(List.of(ring.generate(Instant.now())));
+        return ring;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (StringUtils.hasText(keysDir) && jwksMaxAge.plus(reloadInterval).compareTo(activationDelay) >= 0) {
+            // A node may see a new key file only reload-interval after it appeared, and a verifier may hold the
+            // JWK Set for jwks-max-age after that; the key must not sign before both have passed
+            throw new IllegalStateException("app.jwt.keys.jwks-max-age (" + jwksMaxAge + ") plus reload-interval ("
+                    + reloadInterval + ") must stay below activation-delay (" + activationDelay + ")");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("jwt-key-ring-"));
+        if (StringUtils.hasText(keysDir)) {
+            reloadFromDirectory();
+            scheduler.scheduleWithFixedDelay(this::reloadSafely, reloadInterval.toMillis(), reloadInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+            log.info("Loaded JWT signing keys from {}, re-read every {}", keysDir, reloadInterval);
+        } else if (singleNode) {
+            Instant now = Instant.now();
+            publish(List.of(generate(now), generate(now.plus(rotationInterval))));
+            scheduler.scheduleAtFixedRate(this::rotateSafely, rotationInterval.toMillis(), rotationInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+            log.info("Generated in-memory {} JWT signing keys, rotated every {}; tokens only verify on this node",
+                    algorithm, rotationInterval);
+        } else {
+            throw new IllegalStateException("No JWT signing keys configured: set app.jwt.keys.dir to a directory of JWK "
+                    + "files shared by every node, or app.jwt.keys.single-node=true to generate keys in memory "
+                    + "(tokens then only verify on this node and until it restarts)");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    SigningKey signingKey() {
+        return snapshot.signing();
+    }
+
+    /**
+     * @return How long clients may cache {@link #jwks()}.
+     */
+    public Duration jwksMaxAge() {
+        return jwksMaxAge;
+    }
+
+    /**
+     * @return The published keys as a JWK Set ({@code {"keys": [...]}}), ready to be serialized.
+     */
+    public Map<String, Object> jwks() {
+        return snapshot.jwks();
+    }
+
+    /**
+     * Resolves the verification key from the token's {@code kid} while it is parsed, with one map lookup.
+     * Tokens without a kid (issued before asymmetric signing) fall back to {@code legacyKey} when there is one,
+     * but only until {@code legacyUntil}.
+     */
+    LocatorAdapter<Key> keyLocator(Key legacyKey, Instant legacyUntil) {
+        return new LocatorAdapter<>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                String kid = header.getKeyId();
+                if (kid == null) {
+                    return legacyKey != null && header.getAlgorithm() != null && header.getAlgorithm().startsWith("HS")
+                            && Instant.now().isBefore(legacyUntil)
+                            ? legacyKey
+                            : null;
+                }
+                return snapshot.verificationKeys().get(kid);
+            }
+        };
+    }
+
+    /**
+     * Promotes the upcoming key to signing, retires the previous one and generates the next.
+     */
+    synchronized void rotate() {
+        Instant now = Instant.now();
+        List<SigningKey> keys = new ArrayList<>();
+        for (SigningKey key : snapshot.keys()) {
+            if (key == snapshot.signing()) {
+                keys.add(withLifetime(key, key.activeFrom(), now.plusMillis(retentionMillis)));
+            } else if (key.retainUntil() == null) {
+                keys.add(withLifetime(key, now, null)); // The upcoming key; the timer may fire a little early
+            } else if (key.retainUntil().isAfter(now)) {
+                keys.add(key);
+            }
+        }
+        keys.add(generate(now.plus(rotationInterval)));
+        publish(keys);
+    }
+
+    private void rotateSafely() {
+        try {
+            rotate();
+        } catch (RuntimeException e) {
+            log.error("JWT key rotation failed; still signing with {}", snapshot.signing().kid(), e);
+        }
+    }
+
+    private void reloadSafely() {
+        try {
+            reloadFromDirectory();
+        } catch (RuntimeException e) {
+            log.warn("Could not reload JWT keys from {}; keeping the current ones: {}", keysDir, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads every {@code *.json} JWK in the directory; the file's modification time stands in for its creation time.
+     */
+    private synchronized void reloadFromDirectory() {
+        List<SigningKey> keys = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Path.of(keysDir), "*.json")) {
+            for (Path file : files) {
+                Jwk<?> jwk = Jwks.parser().build().parse(Files.readString(file, StandardCharsets.UTF_8));
+                Instant created = Files.getLastModifiedTime(file).toInstant();
+                String fileName = file.getFileName().toString();
+                String kid = jwk.getId() != null ? jwk.getId() : fileName.substring(0, fileName.length() - ".json".length());
+                keys.add(fromJwk(kid, jwk, created.plus(activationDelay)));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read JWT keys from " + keysDir, e);
+        }
+        if (keys.stream().noneMatch(key -> key.privateKey() != null)) {
+            throw new IllegalStateException("No private JWK in " + keysDir + " to sign tokens with");
+        }
+        publish(keys);
+    }
+
+    private static SigningKey fromJwk(String kid, Jwk<?> jwk, Instant activeFrom) {
+        if (jwk instanceof PrivateJwk<?, ?, ?> privateJwk) {
+            PublicKey publicKey = privateJwk.toPublicJwk().toKey();
+            return new SigningKey(kid, algorithmOf(jwk, publicKey), privateJwk.toKey(), publicKey, activeFrom, null);
+        }
+        if (jwk instanceof PublicJwk<?> publicJwk) {
+            PublicKey publicKey = publicJwk.toKey();
+            return new SigningKey(kid, algorithmOf(jwk, publicKey), null, publicKey, activeFrom, null);
+        }
+        throw new IllegalArgumentException("JWK " + kid + " is not an asymmetric key");
+    }
+
+    private static String algorithmOf(Jwk<?> jwk, PublicKey publicKey) {
+        if (jwk.getAlgorithm() != null) {
+            return jwk.getAlgorithm();
+        }
+        return "EC".equals(publicKey.getAlgorithm()) ? ES256 : EDDSA;
+    }
+
+    private SigningKey generate(Instant activeFrom) {
+        KeyPair pair = switch (algorithm) {
+            case EDDSA -> Jwts.SIG.EdDSA.keyPair().build();
+            case ES256 -> Jwts.SIG.ES256.keyPair().build();
+            default -> throw new IllegalArgumentException("Unsupported JWT signing algorithm: " + algorithm);
+        };
+        return new SigningKey(UUID.randomUUID().toString(), algorithm, pair.getPrivate(), pair.getPublic(),
+                activeFrom, null);
+    }
+
+    private static SigningKey withLifetime(SigningKey key, Instant activeFrom, Instant retainUntil) {
+        return new SigningKey(key.kid(), key.algorithm(), key.privateKey(), key.publicKey(), activeFrom, retainUntil);
+    }
+
+    /**
+     * Builds the snapshot for a key set: the signer is the newest unretired private key that is already active
+     * (or the oldest unretired one, if none is yet), and every key gets a verification entry and a public JWK.
+     */
+    private void publish(List<SigningKey> keys) {
+        Instant now = Instant.now();
+        List<SigningKey> candidates = keys.stream()
+                .filter(key -> key.privateKey() != null && key.retainUntil() == null)
+                .toList();
+        SigningKey signing = candidates.stream()
+                .filter(key -> !key.activeFrom().isAfter(now))
+                .max(Comparator.comparing(SigningKey::activeFrom))
+                .or(() -> candidates.stream().min(Comparator.comparing(SigningKey::activeFrom)))
+                .orElseThrow(() -> new IllegalStateException("No JWT signing key available"));
+
+        Map<String, PublicKey> verificationKeys = new LinkedHashMap<>();
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (SigningKey key : keys) {
+            verificationKeys.put(key.kid(), key.publicKey());
+            jwks.add(Map.copyOf(Jwks.builder()
+                    .key(key.publicKey())
+                    .id(key.kid())
+                    .algorithm(key.algorithm())
+                    .publicKeyUse("sig")
+                    .build()));
+        }
+
+        SigningKey previous = snapshot != null ? snapshot.signing() : null;
+        snapshot = new Snapshot(List.copyOf(keys), signing, Map.copyOf(verificationKeys), Map.of("keys", List.copyOf(jwks)));
+        if (previous != null && !previous.kid().equals(signing.kid())) {
+            log.info("JWT tokens are now signed with key {}", signing.kid());
+        }
+    }
+}
@@ -1,56 +1,271 @@
 package com.example.springcrud.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.example.springcrud.entity.Role;
+import com.example.springcrud.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
-import java.util.Date;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @Component
+@Slf4j
 public class JwtUtil {
 
+    // Claim names used when the token carries the principal itself
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_EMAIL = "email";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+    public static final String CLAIM_TOKEN_USE = "use";
+
+    public static final String USE_ACCESS = "access";
+    public static final String USE_REFRESH = "refresh";
+
+    // Lifetime of a login, i.e. of the refresh token; access tokens are re-issued from it as they expire
+    private final long expirationTime;
+
+    // Kept short so that a revoked or stale access token stops working soon even on nodes that never heard of it
+    private final Duration accessTokenTtl;
+
+    private final JwtKeyRing keyRing;
+
+    // A built JwtParser is immutable and thread-safe, so one instance serves every request;
+    // it picks the verification key by the token's kid from the key ring
+    private final JwtParser parser;
 
-    @Value("${JWT_SECRET}")
-    private String secret;
+    // SHA-256 digest of the raw token -> verified claims, evicted when the token itself expires
+    private final Cache<String, VerifiedToken> verifiedTokens;
 
-    @Value("${JWT_EXPIRATION}")
-    private long expirationTime;
+    // jwt.verify by result: answered from the cache, signature checked, or rejected
+    private final Timer cachedTimer;
+    private final Timer verifiedTimer;
+    private final Timer expiredTimer;
+    private final Timer invalidTimer;
 
-    private Key key;
+    /**
+     * @param secret            Only needed to keep accepting HMAC tokens issued before asymmetric signing.
+     * @param legacyHmacUntil   When HMAC tokens stop being accepted; required whenever {@code secret} is set,
+     *                          so the secret cannot outlive them.
+     * @param verifiedCacheSize Upper bound on how many verified tokens are remembered at once.
+     */
+    public JwtUtil(JwtKeyRing keyRing, MeterRegistry meterRegistry,
+                   @Value("${JWT_SECRET:}") String secret,
+                   @Value("${app.jwt.legacy-hmac-until:}") String legacyHmacUntil,
+                   @Value("${JWT_EXPIRATION}") long expirationTime,
+                   @Value("${app.jwt.access-token-ttl:15m}") Duration accessTokenTtl,
+                   @Value("${app.jwt.verified-cache-size:10000}") long verifiedCacheSize) {
+        this.keyRing = keyRing;
+        this.expirationTime = expirationTime;
+        this.accessTokenTtl = accessTokenTtl;
 
-    @PostConstruct
-    public void init() {
-        byte[] decodedKey = Base64.getDecoder().decode(secret);
-        this.key = Keys.hmacShaKeyFor(decodedKey);
+        SecretKey legacyKey = null;
+        Instant legacyUntil = Instant.MIN;
+        if (StringUtils.hasText(secret)) {
+            if (!StringUtils.hasText(legacyHmacUntil)) {
+                throw new IllegalStateException("JWT_SECRET is set but app.jwt.legacy-hmac-until is not: set it to the "
+                        + "time the last HMAC token expires (the upgrade plus JWT_EXPIRATION), or drop JWT_SECRET");
+            }
+            legacyUntil = Instant.parse(legacyHmacUntil);
+            if (legacyUntil.isAfter(Instant.now())) {
+                legacyKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(secret));
+            } else {
+                log.warn("app.jwt.legacy-hmac-until ({}) has passed; HMAC tokens are rejected and JWT_SECRET can be removed",
+                        legacyHmacUntil);
+            }
+        }
+        this.parser = Jwts.parser().keyLocator(keyRing.keyLocator(legacyKey, legacyUntil)).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new ExpireAtTokenExpiry())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwtVerified");
+        this.cachedTimer = verifyTimer(meterRegistry, "cached");
+        this.verifiedTimer = verifyTimer(meterRegistry, "verified");
+        this.expiredTimer = verifyTimer(meterRegistry, "expired");
+        this.invalidTimer = verifyTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer verifyTimer(MeterRegistry registry, String result) {
+        return Timer.builder("jwt.verify")
+                .description("Bearer token parsing and signature verification")
+                .tag("result", result)
+                .register(registry);
     }
 
 
     public String generateToken(String username) {
-        return Jwts.builder()
+        return sign(Jwts.builder()
+                .subject(username)
+                .claim(CLAIM_TOKEN_USE, USE_ACCESS)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + accessTokenTtl.toMillis())));
+    }
+
+    /**
+     * Issues a token that also carries id, email, roles and the user's current token version,
+     * so the auth filter can rebuild the principal without loading the user.
+     */
+    public String generateToken(User user, int tokenVersion) {
+        return generateToken(user.getId(), user.getUsername(), user.getEmail(), user.getRoles(), tokenVersion);
+    }
+
+    public String generateToken(Long userId, String username, String email, Collection<Role> roles, int tokenVersion) {
+        return sign(Jwts.builder()
+                .id(newTokenId())
                 .subject(username)
+                .claim(CLAIM_USER_ID, userId)
+                .claim(CLAIM_EMAIL, email)
+                .claim(CLAIM_ROLES, roles.stream().map(Role::name).toList())
+                .claim(CLAIM_TOKEN_VERSION, tokenVersion)
+                .claim(CLAIM_TOKEN_USE, USE_ACCESS)
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(key)
+                .expiration(new Date(System.currentTimeMillis() + accessTokenTtl.toMillis())));
+    }
+
+    /**
+     * Issues a single-use refresh token. It only names the user and their token version; everything else
+     * is looked up again when it is exchanged, so role changes show up in the next access token.
+     */
+    public String generateRefreshToken(Long userId, String username, int tokenVersion) {
+        return sign(Jwts.builder()
+                .id(newTokenId())
+                .subject(username)
+                .claim(CLAIM_USER_ID, userId)
+                .claim(CLAIM_TOKEN_VERSION, tokenVersion)
+                .claim(CLAIM_TOKEN_USE, USE_REFRESH)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + expirationTime)));
+    }
+
+    // Signs with the key ring's current key and names it in the header, so verifiers know which public key to use
+    private String sign(JwtBuilder builder) {
+        JwtKeyRing.SigningKey signing = keyRing.signingKey();
+        return builder.header().keyId(signing.kid()).and()
+                .signWith(signing.privateKey())
                 .compact();
     }
 
+    /**
+     * Issues a fresh access/refresh pair, as done on login and on every refresh.
+     */
+    public TokenPair issueTokens(Long userId, String username, String email, Collection<Role> roles, int tokenVersion) {
+        return new TokenPair(generateToken(userId, username, email, roles, tokenVersion),
+                generateRefreshToken(userId, username, tokenVersion), accessTokenTtl.toSeconds());
+    }
+
+    public TokenPair issueTokens(User user, int tokenVersion) {
+        return issueTokens(user.getId(), user.getUsername(), user.getEmail(), user.getRoles(), tokenVersion);
+    }
+
+    // 128 random bits, URL-safe; only has to be unique among the tokens that have not expired yet
+    private static String newTokenId() {
+        byte[] id = new byte[16];
+        ThreadLocalRandom.current().nextBytes(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+    }
+
+    /**
+     * Parses and verifies a token once. A token that was verified before is answered from
+     * the cache without touching the signature again.
+     *
+     * @param token The compact JWT taken from the Authorization header.
+     * @return The verified claims, or empty if the token is malformed, tampered with or expired.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            // Caffeine evicts at 'exp' but may do so lazily, so re-check on the hot path
+            boolean expired = cached.isExpired(Instant.now());
+            record(expired ? expiredTimer : cachedTimer, start);
+            return expired ? Optional.empty() : Optional.of(cached);
+        }
+
+        try {
+            VerifiedToken verified = VerifiedToken.of(parser.parseSignedClaims(token).getPayload());
+            if (verified.expiresAt() != null) {
+                verifiedTokens.put(digest, verified);
+            }
+            record(verifiedTimer, start);
+            return Optional.of(verified);
+        } catch (ExpiredJwtException e) {
+            record(expiredTimer, start);
+            return Optional.empty();
+        } catch (JwtException | IllegalArgumentException e) {
+            record(invalidTimer, start);
+            return Optional.empty();
+        }
+    }
+
     public String getUsernameFromToken(String token) {
-        JwtParser parser = Jwts.parser().verifyWith((SecretKey) key).build();
-        return parser.parseSignedClaims(token).getPayload().getSubject();
+        return verify(token).map(VerifiedToken::subject).orElse(null);
     }
 
     public boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String digest(String token) {
         try {
-            JwtParser parser = Jwts.parser().verifyWith((SecretKey) key).build();
-            parser.parseSignedClaims(token); // Will throw exception if invalid
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available on this JVM", e);
+        }
+    }
+
+    /**
+     * Keeps each cache entry exactly as long as the token it describes is valid.
+     */
+    private static final class ExpireAtTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long millisLeft = value.expiresAt().toEpochMilli() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
 }
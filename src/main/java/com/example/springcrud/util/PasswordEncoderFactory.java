@@ -0,0 +1,84 @@
+package com.example.springcrud.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the application's {@link PasswordEncoder}.
+ * New hashes are written as "{id}hash" so several algorithms can live side by side; hashes stored
+ * before prefixes were introduced are plain bcrypt strings and are still matched by bcrypt.
+ * The bcrypt cost is picked at startup by timing this host against a target latency.
+ */
+@Slf4j
+public final class PasswordEncoderFactory {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String PBKDF2 = "pbkdf2";
+    public static final String ARGON2 = "argon2";
+
+    // Never go below the Spring Security default, however slow the host is
+    static final int MIN_BCRYPT_STRENGTH = 10;
+    static final int MAX_BCRYPT_STRENGTH = 16;
+
+    private static final String CALIBRATION_PASSWORD = "calibration-Passw0rd!";
+
+    private PasswordEncoderFactory() {
+    }
+
+    /**
+     * @param algorithm     Id of the algorithm used for new hashes: bcrypt, pbkdf2 or argon2.
+     * @param targetLatency How long a single bcrypt hash should take on this host.
+     * @return A delegating encoder that reports older or weaker hashes through {@code upgradeEncoding}.
+     */
+    public static PasswordEncoder create(String algorithm, Duration targetLatency) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, new BCryptPasswordEncoder(calibrateBcryptStrength(targetLatency)));
+        // PBKDF2 does not store its iteration count in the hash, so it must stay fixed rather than calibrated
+        encoders.put(PBKDF2, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (ClassUtils.isPresent("org.bouncycastle.crypto.generators.Argon2BytesGenerator", null)) {
+            encoders.put(ARGON2, Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        }
+
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalArgumentException("Unsupported password algorithm '" + algorithm
+                    + "', expected one of " + encoders.keySet());
+        }
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
+    }
+
+    /**
+     * Each extra bcrypt round doubles the work, so one measurement at the minimum strength is enough
+     * to work out how many rounds fit in the target latency.
+     */
+    static int calibrateBcryptStrength(Duration targetLatency) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_BCRYPT_STRENGTH);
+        probe.encode(CALIBRATION_PASSWORD); // warm-up
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode(CALIBRATION_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double headroom = (double) targetLatency.toNanos() / best;
+        int extraRounds = headroom > 1 ? (int) Math.floor(Math.log(headroom) / Math.log(2)) : 0;
+        int strength = Math.min(MAX_BCRYPT_STRENGTH, MIN_BCRYPT_STRENGTH + extraRounds);
+
+        log.info("bcrypt strength {} took {} ms; using strength {} for a {} ms target",
+                MIN_BCRYPT_STRENGTH, Duration.ofNanos(best).toMillis(), strength, targetLatency.toMillis());
+        return strength;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.springcrud.util;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an id that is assigned from {@link SnowflakeIdGenerator} before the INSERT,
+ * which lets Hibernate batch inserts (IDENTITY would force one statement per entity).
+ */
+@IdGeneratorType(SnowflakeHibernateGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface SnowflakeId {
+}
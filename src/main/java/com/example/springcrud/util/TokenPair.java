@@ -0,0 +1,11 @@
+package com.example.springcrud.util;
+
+/**
+ * What a client receives on login and on every refresh.
+ *
+ * @param accessToken  Short-lived bearer token for API calls.
+ * @param refreshToken Single-use token that buys the next pair; replaced on every refresh.
+ * @param expiresIn    Seconds until the access token expires.
+ */
+public record TokenPair(String accessToken, String refreshToken, long expiresIn) {
+}
@@ -0,0 +1,48 @@
+package com.example.springcrud.util;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Names of the unique constraints on the users table, and which field a violation refers to.
+ * Inserts rely on these constraints instead of checking first, so a duplicate surfaces as a
+ * {@link DataIntegrityViolationException} that has to be traced back to the offending field.
+ */
+public final class UserConstraints {
+
+    public static final String UNIQUE_USERNAME = "uk_users_username";
+    public static final String UNIQUE_EMAIL = "uk_users_email";
+    public static final String UNIQUE_FULLNAME = "uk_users_fullname";
+
+    public enum Field { USERNAME, EMAIL, FULLNAME }
+
+    private UserConstraints() {
+    }
+
+    /**
+     * Finds the constraint name in the driver's message (MySQL: {@code for key 'users.uk_users_email'},
+     * H2: {@code PUBLIC.UK_USERS_EMAIL_INDEX_4}).
+     *
+     * @return The violated field, or empty for other violations and for schemas created before the
+     * constraints were named, whose generated names mean nothing.
+     */
+    public static Optional<Field> violatedField(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        if (message == null) {
+            return Optional.empty();
+        }
+        String normalized = message.toLowerCase(Locale.ROOT);
+        if (normalized.contains(UNIQUE_USERNAME)) {
+            return Optional.of(Field.USERNAME);
+        }
+        if (normalized.contains(UNIQUE_EMAIL)) {
+            return Optional.of(Field.EMAIL);
+        }
+        if (normalized.contains(UNIQUE_FULLNAME)) {
+            return Optional.of(Field.FULLNAME);
+        }
+        return Optional.empty();
+    }
+}
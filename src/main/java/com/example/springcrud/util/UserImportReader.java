@@ -0,0 +1,139 @@
+package com.example.springcrud.util;
+
+import com.example.springcrud.model.request.UserRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads a bulk user upload one record at a time, so the upload is never held in memory as a whole.
+ * <ul>
+ *     <li>CSV: a header row naming the columns fullname, username, email and password (any order),
+ *     then one user per line. Fields may be double-quoted; a quote inside a quoted field is doubled.</li>
+ *     <li>NDJSON: one {@link UserRequest} JSON object per line.</li>
+ * </ul>
+ * Blank lines are skipped. A line that cannot be parsed is reported as a record with an error, not thrown.
+ */
+public final class UserImportReader {
+
+    public enum Format { CSV, NDJSON }
+
+    /**
+     * @param line    1-based line number in the upload.
+     * @param request The parsed user, or null if the line could not be parsed.
+     * @param error   Why the line could not be parsed, or null.
+     */
+    public record Record(int line, UserRequest request, String error) {
+    }
+
+    private static final List<String> CSV_COLUMNS = List.of("fullname", "username", "email", "password");
+
+    private UserImportReader() {
+    }
+
+    public static void read(InputStream in, Format format, ObjectMapper objectMapper, Consumer<Record> sink) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            readCsv(reader, sink);
+        } else {
+            readNdjson(reader, objectMapper.readerFor(UserRequest.class), sink);
+        }
+    }
+
+    private static void readNdjson(BufferedReader reader, ObjectReader objectReader, Consumer<Record> sink) throws IOException {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                sink.accept(new Record(lineNumber, objectReader.readValue(line), null));
+            } catch (JsonProcessingException e) {
+                sink.accept(new Record(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage()));
+            }
+        }
+    }
+
+    private static void readCsv(BufferedReader reader, Consumer<Record> sink) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsvLine(stripBom(header));
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.keySet().containsAll(CSV_COLUMNS)) {
+            throw new IllegalArgumentException("CSV header must contain the columns " + CSV_COLUMNS);
+        }
+
+        String line;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = splitCsvLine(line);
+            if (fields.size() < names.size()) {
+                sink.accept(new Record(lineNumber, null, "Expected " + names.size() + " fields but found " + fields.size()));
+                continue;
+            }
+
+            UserRequest request = new UserRequest();
+            request.setFullname(fields.get(columns.get("fullname")).trim());
+            request.setUsername(fields.get(columns.get("username")).trim());
+            request.setEmail(fields.get(columns.get("email")).trim());
+            request.setPassword(fields.get(columns.get("password")));
+            sink.accept(new Record(lineNumber, request, null));
+        }
+    }
+
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String stripBom(String header) {
+        return header.startsWith("\uFEFF") ? header.substring(1) : header;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.springcrud.util;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable result of parsing and verifying a JWT exactly once.
+ * Instances are shared between requests through the verified-token cache in {@link JwtUtil},
+ * so nothing in here may be mutated after construction.
+ *
+ * @param subject   The token subject (the username).
+ * @param issuedAt  When the token was issued.
+ * @param expiresAt When the token stops being valid.
+ * @param claims    A read-only copy of every claim in the token body.
+ */
+public record VerifiedToken(String subject, Instant issuedAt, Instant expiresAt, Map<String, Object> claims) {
+
+    static VerifiedToken of(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                Collections.unmodifiableMap(new LinkedHashMap<>(claims))
+        );
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+
+    public Object claim(String name) {
+        return claims.get(name);
+    }
+
+    public Long userId() {
+        Object value = claims.get(JwtUtil.CLAIM_USER_ID);
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    public String email() {
+        Object value = claims.get(JwtUtil.CLAIM_EMAIL);
+        return value instanceof String email ? email : null;
+    }
+
+    public List<String> roles() {
+        Object value = claims.get(JwtUtil.CLAIM_ROLES);
+        if (!(value instanceof Collection<?> roles)) {
+            return List.of();
+        }
+        return roles.stream().map(String::valueOf).toList();
+    }
+
+    /**
+     * @return The token's {@code jti}, or null for tokens issued before ids were added.
+     */
+    public String tokenId() {
+        Object value = claims.get(Claims.ID);
+        return value instanceof String id ? id : null;
+    }
+
+    public boolean isRefreshToken() {
+        return JwtUtil.USE_REFRESH.equals(claims.get(JwtUtil.CLAIM_TOKEN_USE));
+    }
+
+    public int tokenVersion() {
+        Object value = claims.get(JwtUtil.CLAIM_TOKEN_VERSION);
+        return value instanceof Number number ? number.intValue() : 0;
+    }
+
+    /**
+     * @return true if the token carries everything needed to rebuild a principal without a DB lookup.
+     */
+    public boolean hasPrincipalClaims() {
+        return subject != null && userId() != null && claims.containsKey(JwtUtil.CLAIM_ROLES);
+    }
+}
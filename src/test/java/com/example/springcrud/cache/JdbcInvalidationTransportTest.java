@@ -0,0 +1,86 @@
+package com.example.springcrud.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcInvalidationTransportTest {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void startingInstanceReplaysRetainedEvents() throws InterruptedException {
+        JdbcInvalidationTransport running = transport();
+        running.init();
+        running.publish(new UserInvalidationEvent(7L, "alice", List.of("alice@example.com"), 3, "node-a"));
+
+        JdbcInvalidationTransport restarted = transport();
+        restarted.init();
+        List<UserInvalidationEvent> received = new CopyOnWriteArrayList<>();
+        restarted.subscribe(received::add);
+        restarted.start();
+        try {
+            awaitEvents(received, 1);
+        } finally {
+            restarted.stop();
+        }
+
+        assertThat(received).singleElement().satisfies(event -> {
+            assertThat(event.userId()).isEqualTo(7L);
+            assertThat(event.tokenVersion()).isEqualTo(3);
+            assertThat(event.emails()).containsExactly("alice@example.com");
+        });
+    }
+
+    @Test
+    void eventsOlderThanTheRetentionAreNotReplayed() throws InterruptedException {
+        JdbcInvalidationTransport running = transport();
+        running.init();
+        running.publish(new UserInvalidationEvent(7L, "alice", List.of(), 3, "node-a"));
+        new JdbcTemplate(database)
+                .update("update user_cache_invalidations set created_at = timestampadd(hour, -2, created_at)");
+
+        JdbcInvalidationTransport restarted = transport();
+        restarted.init();
+        List<UserInvalidationEvent> received = new CopyOnWriteArrayList<>();
+        restarted.subscribe(received::add);
+        restarted.start();
+        try {
+            running.publish(new UserInvalidationEvent(8L, "bob", List.of(), 1, "node-a"));
+            awaitEvents(received, 1);
+        } finally {
+            restarted.stop();
+        }
+
+        assertThat(received).extracting(UserInvalidationEvent::userId).containsExactly(8L);
+    }
+
+    private JdbcInvalidationTransport transport() {
+        return new JdbcInvalidationTransport(database, Duration.ofMillis(10), Duration.ofHours(1));
+    }
+
+    private static void awaitEvents(List<UserInvalidationEvent> received, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (received.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50); // Give any unexpected extra event the chance to show up
+    }
+}
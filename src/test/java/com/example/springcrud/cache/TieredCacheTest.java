@@ -0,0 +1,49 @@
+package com.example.springcrud.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TieredCacheTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void promotionRacingWithAnEvictionDoesNotSurviveInTheNearCache() {
+        Cache<Object, Object> near = Caffeine.newBuilder().build();
+        org.ehcache.Cache<Serializable, Serializable> far = mock(org.ehcache.Cache.class, RETURNS_DEEP_STUBS);
+        TieredCache cache = new TieredCache("users", near, far);
+        AtomicReference<Serializable> farValue = new AtomicReference<>("old");
+
+        // The evict completes after the reader fetched the old far value, but before it promotes it
+        when(far.get("alice")).thenAnswer(invocation -> {
+            Serializable read = farValue.getAndSet(null);
+            if (read != null) {
+                cache.evict("alice");
+            }
+            return read;
+        });
+
+        assertThat(cache.get("alice").get()).isEqualTo("old");
+        assertThat(near.getIfPresent("alice")).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unchangedFarHitIsPromoted() {
+        Cache<Object, Object> near = Caffeine.newBuilder().build();
+        org.ehcache.Cache<Serializable, Serializable> far = mock(org.ehcache.Cache.class, RETURNS_DEEP_STUBS);
+        TieredCache cache = new TieredCache("users", near, far);
+        when(far.get("bob")).thenReturn("current");
+
+        assertThat(cache.get("bob").get()).isEqualTo("current");
+        assertThat(near.getIfPresent("bob")).isEqualTo("current");
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.springcrud.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("loadtest")
+@SpringBootTest
+@AutoConfigureMockMvc
+class ActuatorSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void healthIsPublic() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void diagnosticEndpointsRequireAuthentication() throws Exception {
+        mockMvc.perform(get("/actuator/slowtraces")).andExpect(status().is4xxClientError());
+        mockMvc.perform(post("/actuator/requestlogging").contentType("application/json").content("{}"))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void diagnosticEndpointsAreAdminOnly() throws Exception {
+        mockMvc.perform(get("/actuator/slowtraces")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/requestlogging")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void adminsCanReadSlowTraces() throws Exception {
+        mockMvc.perform(get("/actuator/slowtraces")).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.springcrud.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserUniqueIndexMigrationTest {
+
+    @Test
+    void renamesAutoNamedIndexesToTheirConstraintNames() {
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        indexes.put("UK_r43af9ap4edm43mmtq01oddj6", List.of("username"));
+        indexes.put("UK_6dotkott2kjsp8vw4d0m25fb7", List.of("email"));
+        indexes.put("UK_fullname_legacy", List.of("fullname"));
+
+        assertThat(UserUniqueIndexMigration.plan(indexes)).containsExactly(
+                "alter table users rename index `UK_6dotkott2kjsp8vw4d0m25fb7` to `uk_users_email`",
+                "alter table users rename index `UK_fullname_legacy` to `uk_users_fullname`",
+                "alter table users rename index `UK_r43af9ap4edm43mmtq01oddj6` to `uk_users_username`");
+    }
+
+    @Test
+    void dropsOldIndexesOnceTheNamedOnesExist() {
+        // What ddl-auto=update leaves behind when it already ran against the old schema
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        indexes.put("UK_r43af9ap4edm43mmtq01oddj6", List.of("username"));
+        indexes.put("uk_users_username", List.of("username"));
+        indexes.put("uk_users_email", List.of("email"));
+
+        assertThat(UserUniqueIndexMigration.plan(indexes))
+                .containsExactly("alter table users drop index `UK_r43af9ap4edm43mmtq01oddj6`");
+    }
+
+    @Test
+    void leavesMigratedAndCompositeIndexesAlone() {
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        indexes.put("uk_users_username", List.of("username"));
+        indexes.put("uk_users_email", List.of("email"));
+        indexes.put("uk_users_fullname", List.of("fullname"));
+        indexes.put("uk_users_email_username", List.of("email", "username"));
+
+        assertThat(UserUniqueIndexMigration.plan(indexes)).isEmpty();
+    }
+}
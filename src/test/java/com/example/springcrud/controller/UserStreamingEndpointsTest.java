@@ -0,0 +1,111 @@
+package com.example.springcrud.controller;
+
+import com.example.springcrud.model.request.UserRequest;
+import com.example.springcrud.repository.UserRepository;
+import com.example.springcrud.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("loadtest")
+@SpringBootTest(properties = {
+        "app.users.export.max-concurrent=1",
+        "app.users.stream-max-concurrent=1",
+        "app.users.stream-chunk-size=2",
+        "app.password.target-latency-ms=1"
+})
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class UserStreamingEndpointsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void exportsRunOneAfterAnotherOnASingleSlot() throws Exception {
+        // With one slot, the second export only starts if the first gave its slot back
+        for (int i = 0; i < 2; i++) {
+            MvcResult started = mockMvc.perform(get("/api/users/export").param("format", "csv"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            started.getAsyncResult();
+
+            MvcResult finished = mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/gzip"))
+                    .andExpect(header().string("Content-Disposition", "attachment; filename=\"users-after-0.csv.gz\""))
+                    .andReturn();
+
+            byte[] csv = new GZIPInputStream(new ByteArrayInputStream(finished.getResponse().getContentAsByteArray()))
+                    .readAllBytes();
+            assertThat(new String(csv, StandardCharsets.UTF_8)).startsWith("id,fullname,username,email,roles\n");
+        }
+    }
+
+    @Test
+    void ndjsonListingStreamsEveryChunkAndGivesItsSlotBack() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            UserRequest user = new UserRequest();
+            user.setFullname("Streamed User " + i);
+            user.setUsername("streamed" + i);
+            user.setEmail("streamed" + i + "@example.com");
+            user.setPassword("Streamed-Passw0rd");
+            userService.registerUser(user).join();
+        }
+
+        // Five users over chunks of two; with one slot, the second listing only starts if the first released it
+        for (int i = 0; i < 2; i++) {
+            MvcResult started = mockMvc.perform(get("/api/users").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            started.getAsyncResult();
+
+            MvcResult finished = mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                    .andReturn();
+            assertThat(finished.getResponse().getContentAsString().lines()).hasSize(5);
+        }
+    }
+
+    @Test
+    void ndjsonListingIsRefusedWhileEverySlotIsTaken() throws Exception {
+        UserService.UserStream running = userService.startStream(0);
+        try {
+            mockMvc.perform(get("/api/users").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            running.release();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.springcrud.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * The user API operations the load test drives, named as they appear in the mix and the report.
+ */
+enum Endpoint {
+
+    REGISTER("register"),
+    LOGIN("login"),
+    ME("me"),
+    UPDATE("update"),
+    DELETE("delete-direct");
+
+    private final String reportName;
+
+    Endpoint(String reportName) {
+        this.reportName = reportName;
+    }
+
+    String reportName() {
+        return reportName;
+    }
+
+    static Endpoint fromName(String name) {
+        return Arrays.stream(values())
+                .filter(endpoint -> endpoint.reportName.equalsIgnoreCase(name) || endpoint.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint '" + name + "'"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.springcrud.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and response-code counts of one endpoint, safe to record into from every worker.
+ */
+class EndpointStats {
+
+    // Anything slower than a minute is recorded as a minute
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    // Pseudo status code for requests that never got a response
+    static final int IO_ERROR = -1;
+
+    private final Histogram latencyMicros = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+
+    void record(int status, long elapsedNanos) {
+        latencyMicros.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), HIGHEST_TRACKABLE_MICROS));
+        statusCodes.computeIfAbsent(status, code -> new LongAdder()).increment();
+        if (status < 200 || status >= 300) {
+            errors.increment();
+        }
+    }
+
+    long requests() {
+        return latencyMicros.getTotalCount();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    /**
+     * @return A JSON-friendly summary; latencies in milliseconds, throughput in requests per second.
+     */
+    Map<String, Object> summarize(double measuredSeconds) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", millis(latencyMicros.getValueAtPercentile(50)));
+        latency.put("p90", millis(latencyMicros.getValueAtPercentile(90)));
+        latency.put("p99", millis(latencyMicros.getValueAtPercentile(99)));
+        latency.put("p999", millis(latencyMicros.getValueAtPercentile(99.9)));
+        latency.put("max", millis(latencyMicros.getMaxValue()));
+        latency.put("mean", millis(latencyMicros.getMean()));
+
+        Map<String, Long> codes = new LinkedHashMap<>();
+        statusCodes.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> codes.put(entry.getKey() == IO_ERROR ? "io-error" : String.valueOf(entry.getKey()),
+                        entry.getValue().sum()));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", requests());
+        summary.put("errors", errors());
+        summary.put("throughputPerSecond", measuredSeconds > 0 ? requests() / measuredSeconds : 0);
+        summary.put("latencyMs", latency);
+        summary.put("statusCodes", codes);
+        return summary;
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+}
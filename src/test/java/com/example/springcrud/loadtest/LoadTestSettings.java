@@ -0,0 +1,66 @@
+package com.example.springcrud.loadtest;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Knobs of a load-test run, read from system properties so they can be passed on the Maven command line,
+ * e.g. {@code ./mvnw -Pload-test test -Dloadtest.concurrency=64 -Dloadtest.duration-seconds=120}.
+ *
+ * @param concurrency     Number of virtual users issuing requests back to back.
+ * @param warmupSeconds   Time spent under load before anything is recorded.
+ * @param durationSeconds Length of the measured window.
+ * @param seedUsers       Accounts registered before the run starts.
+ * @param mix             Relative weight of each endpoint, e.g. {@code me=60,login=20,update=10,register=5,delete=5}.
+ * @param randomSeed      Seed for the per-worker random streams, so a run can be repeated exactly.
+ * @param maxErrorRate    Fraction of non-2xx responses above which the test fails.
+ * @param reportDir       Where the JSON reports are written.
+ */
+record LoadTestSettings(int concurrency, int warmupSeconds, int durationSeconds, int seedUsers,
+                        Map<Endpoint, Integer> mix, long randomSeed, double maxErrorRate, Path reportDir) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.concurrency", 16),
+                Integer.getInteger("loadtest.warmup-seconds", 10),
+                Integer.getInteger("loadtest.duration-seconds", 30),
+                Integer.getInteger("loadtest.seed-users", 100),
+                parseMix(System.getProperty("loadtest.mix", "me=60,login=20,update=10,register=5,delete=5")),
+                Long.getLong("loadtest.random-seed", 42L),
+                Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01")),
+                Path.of(System.getProperty("loadtest.report-dir", "target/loadtest"))
+        );
+    }
+
+    /**
+     * Picks the next endpoint according to the configured weights.
+     */
+    Endpoint nextEndpoint(Random random) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int roll = random.nextInt(total);
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty endpoint mix");
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String spec) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String part : spec.split(",")) {
+            String[] weight = part.trim().split("=");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint=weight in loadtest.mix but got '" + part + "'");
+            }
+            mix.put(Endpoint.fromName(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("loadtest.mix needs at least one positive weight");
+        }
+        return mix;
+    }
+}
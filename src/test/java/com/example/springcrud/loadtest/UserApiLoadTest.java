@@ -0,0 +1,294 @@
+package com.example.springcrud.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a weighted mix of register, login, me, update and delete calls against the real HTTP stack,
+ * backed by an in-memory database, and writes per-endpoint throughput and latency percentiles as JSON.
+ * <p>
+ * Excluded from the normal build; run it with {@code ./mvnw -Pload-test test} and tune it through the
+ * {@code loadtest.*} system properties described in {@link LoadTestSettings}.
+ */
+@Slf4j
+@Tag("load")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UserApiLoadTest {
+
+    private static final String PASSWORD = "LoadTest-Passw0rd";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment environment;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final AtomicLong accountSequence = new AtomicLong();
+    private final Queue<Account> accounts = new ConcurrentLinkedQueue<>();
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+
+    @Test
+    void mixedUserWorkload() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency());
+        try {
+            seedAccounts(settings, workers);
+
+            long warmupEnds = System.nanoTime() + Duration.ofSeconds(settings.warmupSeconds()).toNanos();
+            long runEnds = warmupEnds + Duration.ofSeconds(settings.durationSeconds()).toNanos();
+            Instant startedAt = Instant.now();
+
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < settings.concurrency(); i++) {
+                Random random = new Random(settings.randomSeed() + i);
+                running.add(workers.submit(() -> runWorker(settings, random, warmupEnds, runEnds)));
+            }
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+
+            Path report = writeReport(settings, startedAt);
+            log.info("Load test report written to {}", report.toAbsolutePath());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        long requests = stats.values().stream().mapToLong(EndpointStats::requests).sum();
+        long errors = stats.values().stream().mapToLong(EndpointStats::errors).sum();
+        assertThat(requests).as("requests recorded").isPositive();
+        assertThat((double) errors / requests).as("error rate").isLessThanOrEqualTo(settings.maxErrorRate());
+    }
+
+    private void seedAccounts(LoadTestSettings settings, ExecutorService workers) throws Exception {
+        List<Future<?>> seeding = new ArrayList<>();
+        for (int i = 0; i < settings.seedUsers(); i++) {
+            seeding.add(workers.submit(() -> {
+                Account account = newAccount();
+                if (send(Endpoint.REGISTER, registerRequest(account), false) / 100 == 2 && login(account, false)) {
+                    accounts.add(account);
+                }
+            }));
+        }
+        for (Future<?> seed : seeding) {
+            seed.get();
+        }
+        log.info("Seeded {} of {} accounts", accounts.size(), settings.seedUsers());
+    }
+
+    private void runWorker(LoadTestSettings settings, Random random, long warmupEnds, long runEnds) {
+        long now;
+        while ((now = System.nanoTime()) < runEnds) {
+            boolean measuring = now >= warmupEnds;
+            Endpoint endpoint = settings.nextEndpoint(random);
+
+            // Each account is used by one worker at a time; register when the pool has run dry
+            Account account = endpoint == Endpoint.REGISTER ? null : accounts.poll();
+            if (account == null) {
+                register(measuring);
+                continue;
+            }
+
+            boolean keep = switch (endpoint) {
+                case LOGIN -> login(account, measuring);
+                case ME -> {
+                    send(Endpoint.ME, authorized(account, "/me").GET().build(), measuring);
+                    yield true;
+                }
+                case UPDATE -> update(account, measuring);
+                case DELETE -> send(Endpoint.DELETE, authorized(account, "/delete-direct")
+                        .method("DELETE", json(Map.of("username", account.username,
+                                "password", PASSWORD, "confirmDeletion", true)))
+                        .build(), measuring) / 100 != 2;
+                case REGISTER -> throw new IllegalStateException("handled above");
+            };
+            if (keep) {
+                accounts.add(account);
+            }
+        }
+    }
+
+    private void register(boolean measuring) {
+        Account account = newAccount();
+        if (send(Endpoint.REGISTER, registerRequest(account), measuring) / 100 == 2 && login(account, measuring)) {
+            accounts.add(account);
+        }
+    }
+
+    private boolean login(Account account, boolean measuring) {
+        HttpRequest request = request("/login")
+                .POST(json(Map.of("username", account.username, "password", PASSWORD)))
+                .build();
+        HttpResponse<String> response = exchange(Endpoint.LOGIN, request, measuring);
+        if (response == null || response.statusCode() != 200) {
+            return false;
+        }
+        try {
+            account.token = objectMapper.readTree(response.body()).path("token").asText(null);
+        } catch (IOException e) {
+            return false;
+        }
+        return account.token != null;
+    }
+
+    private boolean update(Account account, boolean measuring) {
+        account.revision++;
+        HttpRequest request = authorized(account, "/update")
+                .PUT(json(Map.of("username", account.username, "fullname", account.fullname(),
+                        "email", account.email(), "password", PASSWORD)))
+                .build();
+        if (send(Endpoint.UPDATE, request, measuring) / 100 != 2) {
+            return true;
+        }
+        // An update invalidates every token issued so far, exactly like a real client would see it
+        return login(account, measuring);
+    }
+
+    private Account newAccount() {
+        return new Account("lt" + accountSequence.incrementAndGet());
+    }
+
+    private HttpRequest registerRequest(Account account) {
+        return request("/register")
+                .POST(json(Map.of("fullname", account.fullname(), "username", account.username,
+                        "email", account.email(), "password", PASSWORD)))
+                .build();
+    }
+
+    private int send(Endpoint endpoint, HttpRequest request, boolean measuring) {
+        HttpResponse<String> response = exchange(endpoint, request, measuring);
+        return response == null ? 0 : response.statusCode();
+    }
+
+    private HttpResponse<String> exchange(Endpoint endpoint, HttpRequest request, boolean measuring) {
+        long start = System.nanoTime();
+        HttpResponse<String> response = null;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            log.debug("{} failed: {}", endpoint.reportName(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (measuring) {
+            stats.get(endpoint).record(response == null ? EndpointStats.IO_ERROR : response.statusCode(),
+                    System.nanoTime() - start);
+        }
+        return response;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users" + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.Builder authorized(Account account, String path) {
+        return request(path).header("Authorization", "Bearer " + account.token);
+    }
+
+    private HttpRequest.BodyPublisher json(Map<String, Object> body) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path writeReport(LoadTestSettings settings, Instant startedAt) throws IOException {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("concurrency", settings.concurrency());
+        config.put("warmupSeconds", settings.warmupSeconds());
+        config.put("durationSeconds", settings.durationSeconds());
+        config.put("seedUsers", settings.seedUsers());
+        config.put("randomSeed", settings.randomSeed());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        settings.mix().forEach((endpoint, weight) -> mix.put(endpoint.reportName(), weight));
+        config.put("mix", mix);
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((endpoint, endpointStats) ->
+                endpoints.put(endpoint.reportName(), endpointStats.summarize(settings.durationSeconds())));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        // Compare runs with -Dspring.threads.virtual.enabled=true/false
+        report.put("executionMode", Threading.VIRTUAL.isActive(environment) ? "virtual" : "platform");
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        report.put("settings", config);
+        report.put("endpoints", endpoints);
+
+        Files.createDirectories(settings.reportDir());
+        Path file = settings.reportDir().resolve("user-api-" + startedAt.toEpochMilli() + ".json");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        // Stable name for CI jobs that diff against the previous run
+        Files.copy(file, settings.reportDir().resolve("user-api-latest.json"), StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    private static final class Account {
+
+        private final String username;
+        private int revision;
+        private volatile String token;
+
+        private Account(String username) {
+            this.username = username;
+        }
+
+        private String email() {
+            return username + "@loadtest.example.com";
+        }
+
+        // Full names are unique in the schema, so every revision gets its own
+        private String fullname() {
+            return "Load User " + username + " r" + revision;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.springcrud.ratelimit;
+
+import com.example.springcrud.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginThrottleTest {
+
+    private final LoginThrottle throttle = new LoginThrottle(new SimpleMeterRegistry(),
+            3, Duration.ofHours(1), 1000, Duration.ofHours(1), 1000);
+
+    @Test
+    void failedAttemptsExhaustTheUsernameLimit() {
+        for (int i = 0; i < 3; i++) {
+            throttle.checkAttempt("alice", "10.0.0.1");
+        }
+
+        assertThatThrownBy(() -> throttle.checkAttempt("Alice", "10.0.0.2"))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void successfulLoginsDoNotCountAgainstTheUsername() {
+        for (int i = 0; i < 10; i++) {
+            throttle.checkAttempt("alice", "10.0.0.1");
+            throttle.loginSucceeded("alice");
+        }
+
+        assertThatCode(() -> throttle.checkAttempt("alice", "10.0.0.1")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void successOnlyRefundsItsOwnAttempt() {
+        throttle.checkAttempt("alice", "10.0.0.1");
+        throttle.checkAttempt("alice", "10.0.0.1");
+        throttle.checkAttempt("alice", "10.0.0.1");
+        throttle.loginSucceeded("alice");
+        throttle.checkAttempt("alice", "10.0.0.1");
+
+        assertThatThrownBy(() -> throttle.checkAttempt("alice", "10.0.0.1"))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.springcrud.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshTokenStoreTest {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void aTokenCanOnlyBeMarkedOnceAcrossNodes() {
+        RefreshTokenStore nodeA = newStore();
+        RefreshTokenStore nodeB = newStore();
+        Instant expiresAt = Instant.now().plus(Duration.ofHours(1));
+
+        assertThat(nodeA.markUsed("jti-1", expiresAt)).isTrue();
+        assertThat(nodeB.markUsed("jti-1", expiresAt)).isFalse();
+        assertThat(nodeA.markUsed("jti-1", expiresAt)).isFalse();
+        assertThat(nodeB.markUsed("jti-2", expiresAt)).isTrue();
+    }
+
+    private RefreshTokenStore newStore() {
+        RefreshTokenStore store = new RefreshTokenStore(database);
+        store.createTable();
+        return store;
+    }
+}
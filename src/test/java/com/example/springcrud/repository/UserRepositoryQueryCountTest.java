@@ -0,0 +1,93 @@
+package com.example.springcrud.repository;
+
+import com.example.springcrud.entity.Role;
+import com.example.springcrud.entity.User;
+import com.example.springcrud.model.projection.UserSummary;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the user read paths against N+1 role loading by counting the JDBC statements each one prepares.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UserRepositoryQueryCountTest {
+
+    private static final int USER_COUNT = 20;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < USER_COUNT; i++) {
+            User user = new User("Full Name " + i, "user" + i, "user" + i + "@example.com", "hash");
+            if (i % 2 == 0) {
+                user.getRoles().add(Role.ADMIN);
+            }
+            entityManager.persist(user);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllLoadsRolesInTheSameStatement() {
+        List<User> users = userRepository.findAll();
+        users.forEach(user -> assertThat(user.getRoles()).contains(Role.USER));
+
+        assertThat(users).hasSize(USER_COUNT);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByUsernameLoadsRolesInTheSameStatement() {
+        User user = userRepository.findByUsername("user4").orElseThrow();
+
+        assertThat(user.getRoles()).containsExactlyInAnyOrder(Role.USER, Role.ADMIN);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByIdLoadsRolesInTheSameStatement() {
+        Long id = userRepository.findByUsername("user3").orElseThrow().getId();
+        entityManager.clear();
+        statistics.clear();
+
+        User user = userRepository.findById(id).orElseThrow();
+
+        assertThat(user.getRoles()).containsExactly(Role.USER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keysetPageNeedsOneQueryForUsersAndOneForRoles() {
+        List<UserSummary> page = userRepository.findSummariesByIdGreaterThanOrderByIdAsc(0L, Limit.of(10));
+        userRepository.findRolesByUserIds(page.stream().map(UserSummary::id).toList());
+
+        assertThat(page).hasSize(10);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.springcrud.service;
+
+import com.example.springcrud.model.request.UserRequest;
+import com.example.springcrud.repository.RefreshTokenStore;
+import com.example.springcrud.repository.UserRepository;
+import com.example.springcrud.util.TokenPair;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * A refresh that fails on the database write must leave the token usable, not flag the retry as reuse.
+ */
+@ActiveProfiles("loadtest")
+@SpringBootTest(properties = "app.password.target-latency-ms=1")
+class RefreshTokenRetryTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersions;
+
+    @MockitoSpyBean
+    private RefreshTokenStore refreshTokenStore;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void retryAfterAFailedStoreWriteSucceeds() {
+        UserRequest register = new UserRequest();
+        register.setFullname("Retrying Client");
+        register.setUsername("retrier");
+        register.setEmail("retrier@example.com");
+        register.setPassword("Retrier-Passw0rd");
+        userService.registerUser(register).join();
+        TokenPair tokens = userService.loginAndGetToken("retrier", "Retrier-Passw0rd").join();
+        Long userId = userRepository.findByUsername("retrier").orElseThrow().getId();
+
+        doThrow(new DataAccessResourceFailureException("connection lost"))
+                .doCallRealMethod()
+                .when(refreshTokenStore).markUsed(anyString(), any());
+
+        assertThatThrownBy(() -> userService.refreshTokens(tokens.refreshToken()))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        assertThat(userService.refreshTokens(tokens.refreshToken()).refreshToken()).isNotBlank();
+        assertThat(tokenVersions.currentVersion(userId)).isZero();
+    }
+}
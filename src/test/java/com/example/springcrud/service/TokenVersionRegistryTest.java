@@ -0,0 +1,73 @@
+package com.example.springcrud.service;
+
+import com.example.springcrud.cache.UserInvalidationBus;
+import com.example.springcrud.repository.TokenVersionStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token versions must survive a restart: a fresh registry over the same table sees every bump.
+ */
+@ActiveProfiles("loadtest")
+@SpringBootTest
+class TokenVersionRegistryTest {
+
+    @Autowired
+    private TokenVersionRegistry tokenVersions;
+
+    @Autowired
+    private TokenVersionStore store;
+
+    @Autowired
+    private UserInvalidationBus invalidationBus;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void restartedRegistryKeepsBumpedVersions() {
+        // No such user row: a deleted user's versions have to survive as well
+        long userId = 4_000_001L;
+        tokenVersions.bump(userId);
+        tokenVersions.bump(userId);
+
+        TokenVersionRegistry restarted = new TokenVersionRegistry(invalidationBus, store);
+
+        assertThat(restarted.currentVersion(userId)).isEqualTo(2);
+        assertThat(restarted.isCurrent(userId, 0)).isFalse();
+        assertThat(restarted.isCurrent(userId, 2)).isTrue();
+    }
+
+    @Test
+    void storedVersionNeverMovesBackwards() {
+        long userId = 4_000_002L;
+        store.save(userId, 5);
+        store.save(userId, 3);
+
+        assertThat(store.loadAll()).containsEntry(userId, 5);
+    }
+
+    @Test
+    void bumpTakesEffectOnlyWhenTheTransactionCommits() {
+        long userId = 4_000_003L;
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        tx.executeWithoutResult(status -> {
+            assertThat(tokenVersions.bump(userId)).isEqualTo(1);
+            assertThat(tokenVersions.currentVersion(userId)).isZero();
+            status.setRollbackOnly();
+        });
+        assertThat(tokenVersions.currentVersion(userId)).isZero();
+        assertThat(store.loadAll()).doesNotContainKey(userId);
+
+        tx.executeWithoutResult(status -> tokenVersions.bump(userId));
+        assertThat(tokenVersions.currentVersion(userId)).isEqualTo(1);
+        assertThat(store.loadAll()).containsEntry(userId, 1);
+    }
+}
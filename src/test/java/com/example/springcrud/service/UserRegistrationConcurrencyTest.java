@@ -0,0 +1,127 @@
+package com.example.springcrud.service;
+
+import com.example.springcrud.exception.UserIsPresentException;
+import com.example.springcrud.model.request.UserRequest;
+import com.example.springcrud.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fires many registrations for the same username or email at once and checks that the unique indexes,
+ * not the up-front lookup, decide the outcome: exactly one insert wins and every loser gets the
+ * regular {@link UserIsPresentException} instead of a raw constraint violation.
+ */
+@ActiveProfiles("loadtest")
+@SpringBootTest(properties = {
+        // Cheapest hash the policy allows, so the threads actually overlap at the insert
+        "app.password.target-latency-ms=1",
+        "app.password.queue-capacity=1024"
+})
+class UserRegistrationConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void sameUsernameIsRegisteredExactlyOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String username = "racer" + round;
+            String prefix = username + "-";
+            List<Throwable> failures = registerConcurrently(i -> request("Racer " + prefix + i, username,
+                    prefix + i + "@example.com"));
+
+            assertThat(failures).hasSize(THREADS - 1)
+                    .allSatisfy(failure -> assertThat(failure).isInstanceOf(UserIsPresentException.class)
+                            .hasMessageContaining(username));
+            assertThat(userRepository.findByUsername(username)).isPresent();
+        }
+        assertThat(userRepository.count()).isEqualTo(ROUNDS);
+    }
+
+    @Test
+    void sameEmailIsRegisteredExactlyOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String email = "shared" + round + "@example.com";
+            String prefix = "sharer" + round + "x";
+            List<Throwable> failures = registerConcurrently(i -> request("Sharer " + prefix + i, prefix + i, email));
+
+            assertThat(failures).hasSize(THREADS - 1)
+                    .allSatisfy(failure -> assertThat(failure).isInstanceOf(UserIsPresentException.class)
+                            .hasMessageContaining(email));
+            assertThat(userRepository.findByEmail(email)).isPresent();
+        }
+        assertThat(userRepository.count()).isEqualTo(ROUNDS);
+    }
+
+    /**
+     * Starts every registration at the same moment and waits for all of them.
+     * @return What each failed registration threw, unwrapped from the future.
+     */
+    private List<Throwable> registerConcurrently(IntFunction<UserRequest> requests) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                UserRequest request = requests.apply(i);
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return userService.registerUser(request).join();
+                }));
+            }
+            start.countDown();
+
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<?> result : results) {
+                try {
+                    result.get(30, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    failures.add(unwrap(e.getCause()));
+                }
+            }
+            return failures;
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    private static UserRequest request(String fullname, String username, String email) {
+        UserRequest request = new UserRequest();
+        request.setFullname(fullname);
+        request.setUsername(username);
+        request.setEmail(email);
+        request.setPassword("Concurrent-Passw0rd");
+        return request;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.springcrud.service;
+
+import com.example.springcrud.config.UserPrincipal;
+import com.example.springcrud.model.request.UpdateUserRequest;
+import com.example.springcrud.model.request.UserRequest;
+import com.example.springcrud.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Only a new email or password may end the user's sessions; renaming yourself must not log you out.
+ */
+@ActiveProfiles("loadtest")
+@SpringBootTest(properties = "app.password.target-latency-ms=1")
+class UserUpdateTokenVersionTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersions;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void onlyEmailOrPasswordChangesRevokeTokens() {
+        UserRequest register = new UserRequest();
+        register.setFullname("Renamed Person");
+        register.setUsername("renamer");
+        register.setEmail("renamer@example.com");
+        register.setPassword("Renamer-Passw0rd");
+        userService.registerUser(register).join();
+        UserPrincipal owner = UserPrincipal.build(userRepository.findByUsername("renamer").orElseThrow());
+
+        userService.updateUserByOwnerOrAdmin(update("Another Name", "RENAMER@example.com", null), owner);
+        assertThat(tokenVersions.currentVersion(owner.getId())).isZero();
+
+        userService.updateUserByOwnerOrAdmin(update("Another Name", "moved@example.com", null), owner);
+        assertThat(tokenVersions.currentVersion(owner.getId())).isEqualTo(1);
+
+        userService.updateUserByOwnerOrAdmin(update("Another Name", "moved@example.com", "New-Passw0rd"), owner);
+        assertThat(tokenVersions.currentVersion(owner.getId())).isEqualTo(2);
+    }
+
+    private static UpdateUserRequest update(String fullname, String email, String password) {
+        UpdateUserRequest request = new UpdateUserRequest();
+        request.setUsername("renamer");
+        request.setFullname(fullname);
+        request.setEmail(email);
+        request.setPassword(password);
+        return request;
+    }
+}
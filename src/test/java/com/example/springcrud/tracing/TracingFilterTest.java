@@ -0,0 +1,49 @@
+package com.example.springcrud.tracing;
+
+import jakarta.servlet.AsyncContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TracingFilterTest {
+
+    private final TraceRecorder recorder = new TraceRecorder(1.0, 16, 4);
+    private final TracingFilter filter = new TracingFilter(recorder);
+
+    @Test
+    void synchronousRequestIsRecordedWhenTheChainReturns() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users/me"), response,
+                (req, res) -> ((MockHttpServletResponse) res).setStatus(200));
+
+        assertThat(recorder.recent(10)).singleElement()
+                .satisfies(trace -> assertThat(trace.toView().status()).isEqualTo(200));
+        assertThat(RequestTrace.isActive()).isFalse();
+    }
+
+    @Test
+    void asyncRequestIsRecordedOnceItCompletes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users/login");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<AsyncContext> async = new AtomicReference<>();
+
+        filter.doFilter(request, response, (req, res) -> async.set(req.startAsync()));
+
+        assertThat(recorder.recent(10)).isEmpty();
+        assertThat(RequestTrace.isActive()).isFalse();
+
+        response.setStatus(401);
+        async.get().complete();
+
+        assertThat(recorder.recent(10)).singleElement().satisfies(trace -> {
+            assertThat(trace.toView().uri()).isEqualTo("/api/users/login");
+            assertThat(trace.toView().status()).isEqualTo(401);
+        });
+    }
+}
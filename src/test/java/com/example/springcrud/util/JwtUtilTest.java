@@ -0,0 +1,75 @@
+package com.example.springcrud.util;
+
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private final SecretKey hmacKey = Jwts.SIG.HS256.key().build();
+
+    @Test
+    void hmacTokensAreAcceptedUntilTheCutoff() {
+        JwtUtil jwtUtil = newJwtUtil(Instant.now().plus(Duration.ofHours(1)).toString());
+
+        assertThat(jwtUtil.verify(legacyToken())).map(VerifiedToken::subject).contains("alice");
+    }
+
+    @Test
+    void hmacTokensAreRejectedAfterTheCutoff() {
+        JwtUtil jwtUtil = newJwtUtil(Instant.now().minusSeconds(1).toString());
+
+        assertThat(jwtUtil.verify(legacyToken())).isEmpty();
+    }
+
+    @Test
+    void secretWithoutCutoffFailsStartup() {
+        assertThatThrownBy(() -> newJwtUtil(""))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.jwt.legacy-hmac-until");
+    }
+
+    @Test
+    void keyRingWithoutSharedKeysOrSingleNodeFailsStartup() {
+        JwtKeyRing keyRing = new JwtKeyRing(JwtKeyRing.EDDSA, Duration.ofHours(24), Duration.ofHours(1).toMillis(),
+                "", false, Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(3));
+
+        assertThatThrownBy(keyRing::init)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.jwt.keys.dir");
+        keyRing.shutdown();
+    }
+
+    @Test
+    void jwksMaxAgeThatOutlastsTheActivationDelayFailsStartup() {
+        JwtKeyRing keyRing = new JwtKeyRing(JwtKeyRing.EDDSA, Duration.ofHours(24), Duration.ofHours(1).toMillis(),
+                "/etc/springcrud/jwt-keys", false, Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(4));
+
+        assertThatThrownBy(keyRing::init)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.jwt.keys.jwks-max-age");
+    }
+
+    private String legacyToken() {
+        return Jwts.builder()
+                .subject("alice")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(hmacKey)
+                .compact();
+    }
+
+    private JwtUtil newJwtUtil(String legacyHmacUntil) {
+        return new JwtUtil(JwtKeyRing.inMemory(JwtKeyRing.EDDSA), new SimpleMeterRegistry(),
+                Base64.getEncoder().encodeToString(hmacKey.getEncoded()), legacyHmacUntil,
+                Duration.ofHours(1).toMillis(), Duration.ofMinutes(15), 10);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.springcrud.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long SEQUENCES_PER_MILLI = 1L << SnowflakeIdGenerator.SEQUENCE_BITS;
+    private static final long START = SnowflakeIdGenerator.EPOCH_MILLIS + 1_000_000;
+
+    private final AtomicLong clock = new AtomicLong(START);
+
+    @Test
+    void idsCarryTimestampNodeAndSequence() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, clock::get);
+
+        long id = generator.nextId();
+
+        assertThat(timestamp(id)).isEqualTo(START - SnowflakeIdGenerator.EPOCH_MILLIS);
+        assertThat(node(id)).isEqualTo(5);
+        assertThat(sequence(id)).isZero();
+        assertThat(id).isLessThan(1L << 53);
+    }
+
+    @Test
+    void sequenceOverflowCarriesIntoTheNextMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i <= SEQUENCES_PER_MILLI; i++) {
+            ids.add(generator.nextId());
+        }
+
+        long last = ids.get(ids.size() - 1);
+        assertThat(sequence(ids.get(ids.size() - 2))).isEqualTo(SEQUENCES_PER_MILLI - 1);
+        assertThat(timestamp(last)).isEqualTo(timestamp(ids.get(0)) + 1);
+        assertThat(sequence(last)).isZero();
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void clockSteppingBackKeepsCountingForward() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+        long before = generator.nextId();
+
+        clock.addAndGet(-5_000);
+        long afterStep = generator.nextId();
+        clock.addAndGet(1);
+        long later = generator.nextId();
+
+        assertThat(afterStep).isGreaterThan(before);
+        assertThat(timestamp(afterStep)).isEqualTo(timestamp(before));
+        assertThat(later).isGreaterThan(afterStep);
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIncreasingIds() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        int threads = 8;
+        int perThread = 20_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<List<Long>>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    List<Long> ids = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                    return ids;
+                });
+            }
+
+            Set<Long> all = new HashSet<>();
+            for (Future<List<Long>> future : executor.invokeAll(tasks)) {
+                List<Long> ids = future.get();
+                assertThat(ids).isSorted();
+                all.addAll(ids);
+            }
+            assertThat(all).hasSize(threads * perThread);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsNodeIdsOutsideTheRange() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long timestamp(long id) {
+        return id >>> (SnowflakeIdGenerator.NODE_BITS + SnowflakeIdGenerator.SEQUENCE_BITS);
+    }
+
+    private static long node(long id) {
+        return (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID;
+    }
+
+    private static long sequence(long id) {
+        return id & (SEQUENCES_PER_MILLI - 1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.springcrud.util;
+
+import com.example.springcrud.util.UserImportReader.Format;
+import com.example.springcrud.util.UserImportReader.Record;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void splitsPlainFields() {
+        assertThat(UserImportReader.splitCsvLine("a,b,,d")).containsExactly("a", "b", "", "d");
+    }
+
+    @Test
+    void keepsCommasAndDoubledQuotesInsideQuotedFields() {
+        assertThat(UserImportReader.splitCsvLine("\"Doe, Jane\",\"say \"\"hi\"\"\",x"))
+                .containsExactly("Doe, Jane", "say \"hi\"", "x");
+    }
+
+    @Test
+    void keepsTrailingEmptyField() {
+        assertThat(UserImportReader.splitCsvLine("a,")).containsExactly("a", "");
+    }
+
+    @Test
+    void readsNdjsonLineByLine() throws IOException {
+        List<Record> records = read(Format.NDJSON, """
+                {"fullname":"Jane Doe","username":"jane","email":"jane@example.com","password":"secret1"}
+
+                {"fullname":"John Doe","username":"john","email":"john@example.com","password":"secret2"}
+                """);
+
+        assertThat(records).extracting(Record::line).containsExactly(1, 3);
+        assertThat(records).allSatisfy(record -> assertThat(record.error()).isNull());
+        assertThat(records.get(1).request().getUsername()).isEqualTo("john");
+    }
+
+    @Test
+    void reportsMalformedNdjsonLineAndKeepsGoing() throws IOException {
+        List<Record> records = read(Format.NDJSON, """
+                {"username": broken
+                {"fullname":"John Doe","username":"john","email":"john@example.com","password":"secret2"}
+                """);
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0).request()).isNull();
+        assertThat(records.get(0).error()).startsWith("Malformed JSON: ");
+        assertThat(records.get(1).request().getUsername()).isEqualTo("john");
+    }
+
+    @Test
+    void readsCsvColumnsInAnyOrder() throws IOException {
+        // Spreadsheet exports often start with a byte order mark
+        List<Record> records = read(Format.CSV, "\uFEFFusername,password,email,fullname\n"
+                + "jane,secret1,jane@example.com,\"Doe, Jane\"\n");
+
+        assertThat(records).hasSize(1);
+        assertThat(records.get(0).line()).isEqualTo(2);
+        assertThat(records.get(0).request().getFullname()).isEqualTo("Doe, Jane");
+        assertThat(records.get(0).request().getEmail()).isEqualTo("jane@example.com");
+    }
+
+    private List<Record> read(Format format, String upload) throws IOException {
+        List<Record> records = new ArrayList<>();
+        UserImportReader.read(new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8)), format, objectMapper,
+                records::add);
+        return records;
+    }
+}